@@ -1,6 +1,8 @@
 package org.example.trucksy.Advice;
 import org.example.trucksy.Api.ApiException;
 import org.example.trucksy.Api.ApiResponse;
+import org.example.trucksy.Api.CallbackInProgressException;
+import org.example.trucksy.Api.WarmingUpException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.HttpMediaTypeNotAcceptableException;
 
@@ -22,6 +24,18 @@ public class ControllerAdvice {
         return ResponseEntity.status(400).body(new ApiResponse(ex.getMessage()));
     }
 
+    // duplicate callback while the first delivery is still running: not a success until that one commits
+    @ExceptionHandler(value = CallbackInProgressException.class)
+    public ResponseEntity<ApiResponse> CallbackInProgressException(CallbackInProgressException ex) {
+        return ResponseEntity.status(409).header("Retry-After", "5").body(new ApiResponse(ex.getMessage()));
+    }
+
+    // analytics asked for before the order facts are loaded: empty numbers would look like real ones
+    @ExceptionHandler(value = WarmingUpException.class)
+    public ResponseEntity<ApiResponse> WarmingUpException(WarmingUpException ex) {
+        return ResponseEntity.status(503).header("Retry-After", "10").body(new ApiResponse(ex.getMessage()));
+    }
+
     // Server Validation Exception
     @ExceptionHandler(value = MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse> MethodArgumentNotValidException(MethodArgumentNotValidException e) {
@@ -0,0 +1,94 @@
+package org.example.trucksy.Analytics;
+
+// Double seasonal exponential smoothing (Taylor 2003, additive, no trend) for hourly order counts:
+// one seasonal component for hour of day (24) and one for hour of week (168).
+// Smoothing parameters are chosen per series by a small grid search on one-step-ahead squared error.
+public final class DoubleSeasonalForecaster {
+
+    public static final int DAY = 24;
+    public static final int WEEK = 168;
+
+    private static final double[] ALPHAS = {0.01, 0.05, 0.1, 0.2, 0.3};
+    private static final double[] DELTAS = {0.01, 0.05, 0.1, 0.2};
+    private static final double[] OMEGAS = {0.01, 0.05, 0.1, 0.2};
+
+    private DoubleSeasonalForecaster() {
+    }
+
+    // fitted state after the last observation; index 0 of the series must be a Monday 00:00 bucket
+    public record Model(double alpha, double delta, double omega, double sse,
+                        double level, double[] daily, double[] weekly, int length) {
+
+        // non-negative forecasts for the `horizon` hours following the series
+        public double[] forecast(int horizon) {
+            double[] out = new double[horizon];
+            for (int k = 0; k < horizon; k++) {
+                int t = length + k;
+                out[k] = Math.max(0.0, level + daily[t % DAY] + weekly[t % WEEK]);
+            }
+            return out;
+        }
+
+        public double forecastTotal(int horizon) {
+            double total = 0;
+            for (double v : forecast(horizon)) total += v;
+            return total;
+        }
+    }
+
+    public static Model fit(double[] y) {
+        if (y.length < 2 * WEEK) {
+            return seasonalNaive(y);
+        }
+
+        Model best = null;
+        for (double alpha : ALPHAS) {
+            for (double delta : DELTAS) {
+                for (double omega : OMEGAS) {
+                    Model m = run(y, alpha, delta, omega);
+                    if (best == null || m.sse() < best.sse()) {
+                        best = m;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private static Model run(double[] y, double alpha, double delta, double omega) {
+        // initial state from the first week: overall mean, mean hour-of-day profile, and the weekly remainder
+        double level = 0;
+        for (int i = 0; i < WEEK; i++) level += y[i];
+        level /= WEEK;
+
+        double[] daily = new double[DAY];
+        for (int i = 0; i < WEEK; i++) daily[i % DAY] += (y[i] - level) / (WEEK / DAY);
+        double[] weekly = new double[WEEK];
+        for (int i = 0; i < WEEK; i++) weekly[i] = y[i] - level - daily[i % DAY];
+
+        double sse = 0;
+        for (int t = WEEK; t < y.length; t++) {
+            int d = t % DAY, w = t % WEEK;
+            double error = y[t] - (level + daily[d] + weekly[w]);
+            sse += error * error;
+
+            double newLevel = alpha * (y[t] - daily[d] - weekly[w]) + (1 - alpha) * level;
+            daily[d] = delta * (y[t] - newLevel - weekly[w]) + (1 - delta) * daily[d];
+            weekly[w] = omega * (y[t] - newLevel - daily[d]) + (1 - omega) * weekly[w];
+            level = newLevel;
+        }
+        return new Model(alpha, delta, omega, sse, level, daily, weekly, y.length);
+    }
+
+    // too little history to smooth two seasonalities: repeat the average of each hour of day
+    private static Model seasonalNaive(double[] y) {
+        double[] daily = new double[DAY];
+        int[] n = new int[DAY];
+        for (int i = 0; i < y.length; i++) {
+            daily[i % DAY] += y[i];
+            n[i % DAY]++;
+        }
+        for (int h = 0; h < DAY; h++) daily[h] = n[h] == 0 ? 0 : daily[h] / n[h];
+        return new Model(0, 0, 0, Double.NaN, 0, daily, new double[WEEK], y.length);
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.trucksy.Analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Refits one forecaster per food truck in parallel: the truck list is split in halves until a
+// chunk is small enough, and chunks are fitted on the fork/join pool.
+public final class ForecastBatch {
+
+    private static final int CHUNK = 16;
+
+    private ForecastBatch() {
+    }
+
+    // food truck id -> forecast total over the next `horizon` hours
+    public static Map<Integer, Double> refit(Map<Integer, double[]> seriesByTruck, int horizon, ForkJoinPool pool) {
+        List<Map.Entry<Integer, double[]>> trucks = new ArrayList<>(seriesByTruck.entrySet());
+        return pool.invoke(new RefitTask(trucks, 0, trucks.size(), horizon));
+    }
+
+    private static class RefitTask extends RecursiveTask<Map<Integer, Double>> {
+        private final List<Map.Entry<Integer, double[]>> trucks;
+        private final int from, to, horizon;
+
+        RefitTask(List<Map.Entry<Integer, double[]>> trucks, int from, int to, int horizon) {
+            this.trucks = trucks;
+            this.from = from;
+            this.to = to;
+            this.horizon = horizon;
+        }
+
+        @Override
+        protected Map<Integer, Double> compute() {
+            if (to - from <= CHUNK) {
+                Map<Integer, Double> out = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    Map.Entry<Integer, double[]> e = trucks.get(i);
+                    out.put(e.getKey(), DoubleSeasonalForecaster.fit(e.getValue()).forecastTotal(horizon));
+                }
+                return out;
+            }
+            int mid = (from + to) >>> 1;
+            RefitTask left = new RefitTask(trucks, from, mid, horizon);
+            left.fork();
+            Map<Integer, Double> right = new RefitTask(trucks, mid, to, horizon).compute();
+            right.putAll(left.join());
+            return right;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.trucksy.Analytics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Column-per-field snapshot of order facts (one row per order) for owner analytics.
+// Each column is a primitive array, so an owner scan is a tight loop over contiguous memory
+// instead of a walk over Order entities. The owner column is denormalised from the truck
+// so the scan does not need a truck -> owner lookup per row.
+public class OrderFactStore {
+
+    public static final String[] STATUSES = {"PLACED", "PAID", "READY", "COMPLETED", "CANCELLED"};
+
+    // statuses whose amount has been paid and not cancelled, indexed by status code
+    private static final boolean[] REVENUE = {false, true, true, true, false};
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Integer> rowByOrderId = new HashMap<>();
+
+    private int size;
+    private int[] ownerIds;
+    private int[] truckIds;
+    private int[] epochDays;
+    private long[] amountsHalalas;
+    private byte[] statuses;
+
+    public OrderFactStore(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        ownerIds = new int[capacity];
+        truckIds = new int[capacity];
+        epochDays = new int[capacity];
+        amountsHalalas = new long[capacity];
+        statuses = new byte[capacity];
+    }
+
+    // per-owner totals over the orders placed in [fromEpochDay, toEpochDay]; amounts in halalas, daily arrays
+    // indexed by (epochDay - fromEpochDay). Revenue only counts paid orders (PAID, READY, COMPLETED), while
+    // statusCounts and dailyOrders count every order of the window.
+    public record OwnerAggregate(int fromEpochDay,
+                                 Map<Integer, Long> revenueByTruck,
+                                 long[] statusCounts,
+                                 long[] dailyOrders,
+                                 long[] dailyRevenue) {
+    }
+
+    public static byte statusCode(String status) {
+        for (byte i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i].equals(status)) return i;
+        }
+        return -1;
+    }
+
+    public static long toHalalas(Double amount) {
+        return amount == null ? 0 : Math.round(amount * 100);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // adds the order, or updates its status if it is already known; the other facts never change after placement
+    public void upsert(int orderId, int ownerId, int truckId, int epochDay, long amountHalalas, byte status) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowByOrderId.get(orderId);
+            if (row != null) {
+                statuses[row] = status;
+                return;
+            }
+            append(orderId, ownerId, truckId, epochDay, amountHalalas, status);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // bulk load path: keeps whatever a concurrent upsert already recorded, since that is newer than the snapshot
+    public void insertIfAbsent(int orderId, int ownerId, int truckId, int epochDay, long amountHalalas, byte status) {
+        lock.writeLock().lock();
+        try {
+            if (!rowByOrderId.containsKey(orderId)) {
+                append(orderId, ownerId, truckId, epochDay, amountHalalas, status);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // one pass over the columns; rows of other owners or outside the window cost an int comparison or two
+    public OwnerAggregate aggregate(int ownerId, int fromEpochDay, int toEpochDay) {
+        int days = toEpochDay - fromEpochDay + 1;
+        Map<Integer, Long> revenueByTruck = new HashMap<>();
+        long[] statusCounts = new long[STATUSES.length];
+        long[] dailyOrders = new long[days];
+        long[] dailyRevenue = new long[days];
+
+        lock.readLock().lock();
+        try {
+            int[] owners = ownerIds;
+            for (int i = 0; i < size; i++) {
+                if (owners[i] != ownerId) continue;
+                int day = epochDays[i] - fromEpochDay;
+                if (day < 0 || day >= days) continue;
+
+                byte status = statuses[i];
+                if (status >= 0) statusCounts[status]++;
+                dailyOrders[day]++;
+                if (status >= 0 && REVENUE[status]) {
+                    long amount = amountsHalalas[i];
+                    revenueByTruck.merge(truckIds[i], amount, Long::sum);
+                    dailyRevenue[day] += amount;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new OwnerAggregate(fromEpochDay, revenueByTruck, statusCounts, dailyOrders, dailyRevenue);
+    }
+
+    private void append(int orderId, int ownerId, int truckId, int epochDay, long amountHalalas, byte status) {
+        if (size == ownerIds.length) {
+            int capacity = size + (size >> 1);
+            ownerIds = Arrays.copyOf(ownerIds, capacity);
+            truckIds = Arrays.copyOf(truckIds, capacity);
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            amountsHalalas = Arrays.copyOf(amountsHalalas, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+        }
+        ownerIds[size] = ownerId;
+        truckIds[size] = truckId;
+        epochDays[size] = epochDay;
+        amountsHalalas[size] = amountHalalas;
+        statuses[size] = status;
+        rowByOrderId.put(orderId, size);
+        size++;
+    }
+}
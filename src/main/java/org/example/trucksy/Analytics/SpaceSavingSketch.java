@@ -0,0 +1,70 @@
+package org.example.trucksy.Analytics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Space-Saving heavy hitters (Metwally et al.): tracks at most `capacity` keys whatever the stream size.
+// A reported count over-estimates the true count by at most its error, and any key whose true count exceeds
+// total / capacity is guaranteed to be tracked.
+public class SpaceSavingSketch<K> {
+
+    public record Counter<K>(K key, long count, long error) {}
+
+    private final int capacity;
+    private final Map<K, long[]> counters; // key -> {count, error}
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    // returns the key that was evicted to make room, or null
+    public synchronized K offer(K key, long increment) {
+        if (increment <= 0) return null;
+
+        long[] counter = counters.get(key);
+        if (counter != null) {
+            counter[0] += increment;
+            return null;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new long[]{increment, 0});
+            return null;
+        }
+
+        // replace the smallest counter; the newcomer inherits its count as error (capacity is small, a scan is enough)
+        K minKey = null;
+        long min = Long.MAX_VALUE;
+        for (Map.Entry<K, long[]> e : counters.entrySet()) {
+            if (e.getValue()[0] < min) {
+                min = e.getValue()[0];
+                minKey = e.getKey();
+            }
+        }
+        counters.remove(minKey);
+        counters.put(key, new long[]{min + increment, min});
+        return minKey;
+    }
+
+    public synchronized List<Counter<K>> top(int n) {
+        List<Counter<K>> all = new ArrayList<>(counters.size());
+        for (Map.Entry<K, long[]> e : counters.entrySet()) {
+            all.add(new Counter<>(e.getKey(), e.getValue()[0], e.getValue()[1]));
+        }
+        all.sort(Comparator.comparingLong((Counter<K> c) -> c.count()).reversed());
+        return all.size() > n ? new ArrayList<>(all.subList(0, n)) : all;
+    }
+
+    // replace the state with exact counts (error 0), keeping only the largest `capacity` of them
+    public synchronized void reset(Map<K, Long> exactCounts) {
+        counters.clear();
+        exactCounts.entrySet().stream()
+                .sorted(Map.Entry.<K, Long>comparingByValue().reversed())
+                .limit(capacity)
+                .forEach(e -> counters.put(e.getKey(), new long[]{e.getValue(), 0}));
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.trucksy.Api;
+
+// a payment callback for this transaction id is still being processed; answered with 409 so Moyasar retries it
+public class CallbackInProgressException extends ApiException {
+    public CallbackInProgressException(String message)
+    {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.trucksy.Api;
+
+// an in-memory view is still being loaded after startup; answered with 503 so the client retries shortly
+public class WarmingUpException extends ApiException {
+    public WarmingUpException(String message)
+    {
+        super(message);
+    }
+}
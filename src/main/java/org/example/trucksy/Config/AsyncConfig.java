@@ -0,0 +1,95 @@
+package org.example.trucksy.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    @Value("${payment.executor.max-concurrency:32}")
+    private int paymentMaxConcurrency;
+
+    @Value("${payment.executor.queue-capacity:500}")
+    private int paymentQueueCapacity;
+
+    @Value("${outbox.workers:4}")
+    private int outboxWorkers;
+
+    @Value("${dashboard.precompute.db-concurrency:4}")
+    private int dashboardPrecomputeConcurrency;
+
+    @Value("${ai.jobs.workers:4}")
+    private int aiJobWorkers;
+
+    @Value("${ai.jobs.queue-capacity:100}")
+    private int aiJobQueueCapacity;
+
+    // payment gateway calls run here, outside any DB transaction. Submitted from the committing request thread,
+    // so it must never block: a full queue rejects (TaskRejectedException) and the order is left for the sweep
+    @Bean(name = "paymentExecutor")
+    public ThreadPoolTaskExecutor paymentExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("payment-");
+        executor.setCorePoolSize(paymentMaxConcurrency);
+        executor.setMaxPoolSize(paymentMaxConcurrency);
+        executor.setQueueCapacity(paymentQueueCapacity);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    // outbox deliveries (WhatsApp, invoice mail); a small fixed pool so a slow channel cannot flood the providers
+    @Bean(name = "outboxExecutor")
+    public ThreadPoolTaskExecutor outboxExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("outbox-");
+        executor.setCorePoolSize(outboxWorkers);
+        executor.setMaxPoolSize(outboxWorkers);
+        executor.setQueueCapacity(200);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    // order stream pushes (SSE); one cheap virtual thread per subscriber draining its queue, so only these
+    // senders run on virtual threads and request handling keeps the default platform pool
+    @Bean(name = "orderStreamExecutor")
+    public SimpleAsyncTaskExecutor orderStreamExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("order-stream-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    // scheduled dashboard recomputes; the concurrency limit caps how many owners hit the database at once
+    // and must stay well below the connection pool size so request threads still get connections
+    @Bean(name = "dashboardPrecomputeExecutor")
+    public SimpleAsyncTaskExecutor dashboardPrecomputeExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("dashboard-precompute-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(dashboardPrecomputeConcurrency);
+        return executor;
+    }
+
+    // long scheduled batches (dashboard precompute, forecast refit) run here, so the scheduler threads only start them
+    // and the short periodic jobs (outbox, payment sweep, SSE heartbeat, AI job leases) are never held up
+    @Bean(name = "scheduledJobExecutor")
+    public SimpleAsyncTaskExecutor scheduledJobExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("scheduled-job-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    // AI analysis jobs; bounded so a burst of requests queues (or is rejected) instead of flooding the model API
+    @Bean(name = "aiJobExecutor")
+    public ThreadPoolTaskExecutor aiJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("ai-job-");
+        executor.setCorePoolSize(aiJobWorkers);
+        executor.setMaxPoolSize(aiJobWorkers);
+        executor.setQueueCapacity(aiJobQueueCapacity);
+        return executor;
+    }
+}
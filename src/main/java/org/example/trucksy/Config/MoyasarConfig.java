@@ -0,0 +1,32 @@
+package org.example.trucksy.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+@Configuration
+public class MoyasarConfig {
+
+    @Value("${moyasar.connect-timeout:PT3S}")
+    private Duration connectTimeout;
+
+    @Value("${moyasar.read-timeout:PT15S}")
+    private Duration readTimeout;
+
+    // one shared JDK HttpClient: connections are pooled and kept alive between calls,
+    // so the TLS handshake with Moyasar is not paid on every payment
+    @Bean
+    public RestTemplate moyasarRestTemplate() {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(readTimeout);
+        return new RestTemplate(requestFactory);
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.trucksy.Config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.example.trucksy.Service.MyUserDetailsService;
 import org.springframework.context.annotation.Bean;
@@ -36,6 +37,9 @@ public class SecurityConfig {
                 .authenticationProvider(daoAuthenticationProvider())
                 .authorizeHttpRequests()
 
+                // async re-dispatch of SSE streams (already authorized on the original request)
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                 // =========  (Sign up) =========
                 .requestMatchers("/api/v1/client/add").permitAll()
                 .requestMatchers("/api/v1/owner/add").permitAll()
@@ -45,6 +49,9 @@ public class SecurityConfig {
                 .requestMatchers("/api/v1/order/callback/**").permitAll()
                 .requestMatchers("/api/v1/owner/callback/**").permitAll()
 
+                // local Moyasar stand-in (only mapped with the moyasar-stub profile)
+                .requestMatchers("/stub/moyasar/**").permitAll()
+
                 // Swagger
                 .requestMatchers("/v3/api-docs/**","/swagger-ui/**","/swagger-ui.html").permitAll()
 
@@ -54,6 +61,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/v1/auth/get-all-owners").hasAuthority("ADMIN")
                 .requestMatchers("/api/v1/auth/get-all-clients").hasAuthority("ADMIN")
                 .requestMatchers("/api/v1/auth/delete-foodTruck/**").hasAuthority("ADMIN")
+                .requestMatchers("/actuator/**").hasAuthority("ADMIN")
 
                 // ========= CLIENT =========
                 .requestMatchers("/api/v1/client/update/**").hasAuthority("CLIENT")
@@ -61,6 +69,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/v1/client/update-client-location/**").hasAuthority("CLIENT")
                 .requestMatchers("/api/v1/order/add/**").hasAuthority("CLIENT")
                 .requestMatchers("/api/v1/order/client/**").hasAuthority("CLIENT")
+                .requestMatchers("/api/v1/order/payment/order/**").hasAuthority("CLIENT")
                 .requestMatchers("/api/v1/review/add/**").hasAuthority("CLIENT")
                 .requestMatchers("/api/v1/review/get-reviews-by-client/**").hasAuthority("CLIENT")
                 .requestMatchers("/api/v1/foodTruck/get-foodTrucks-by-category/**").hasAuthority("CLIENT")
@@ -2,20 +2,32 @@ package org.example.trucksy.Controller;
 
 import lombok.RequiredArgsConstructor;
 import org.example.trucksy.Api.ApiResponse;
-import org.example.trucksy.DTOOut.BestSpotAnalyzerDtoOut;
-import org.example.trucksy.DTOOut.DashBoardAnalyzerDtoOut;
-import org.example.trucksy.DTOOut.ReviewAnalyzerDtoOut;
 import org.example.trucksy.Model.User;
+import org.example.trucksy.Service.AiAnalysisJobService;
+import org.example.trucksy.Service.AiResultCache;
 import org.example.trucksy.Service.DashboardService;
+import org.example.trucksy.Service.OrderAnalyticsService;
+import org.example.trucksy.Service.OrderExportService;
+import org.example.trucksy.Service.OrderStreamService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/dashboard")
 @RequiredArgsConstructor
 public class DashboardController {
     private final DashboardService dashboardService;
+    private final OrderStreamService orderStreamService;
+    private final OrderAnalyticsService orderAnalyticsService;
+    private final OrderExportService orderExportService;
+    private final AiAnalysisJobService aiAnalysisJobService;
 
     @PutMapping("/refresh-dashboard")
     public ResponseEntity<?> refreshDashboard(@AuthenticationPrincipal User user) {
@@ -28,39 +40,105 @@ public class DashboardController {
         return ResponseEntity.status(200).body(dashboardService.getOwnerDashboard(user.getId()));
     }
 
+    // order counts per status, total and revenue across all of the owner's trucks
+    @GetMapping("/order-stats")
+    public ResponseEntity<?> getOrderStats(@AuthenticationPrincipal User user) {
+        return ResponseEntity.status(200).body(dashboardService.getOrderStats(user.getId()));
+    }
+
+    // revenue per truck, status mix and daily trend of the orders placed in the last `days` days;
+    // revenue counts paid orders only (PAID, READY, COMPLETED)
+    @GetMapping("/analytics")
+    public ResponseEntity<?> getOwnerAnalytics(@AuthenticationPrincipal User user,
+                                               @RequestParam(defaultValue = "30") Integer days) {
+        return ResponseEntity.status(200).body(orderAnalyticsService.getOwnerAnalytics(user.getId(), days));
+    }
+
+    // full order history of the owner as csv or jsonl, streamed while it is read
+    @GetMapping("/export-orders")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@AuthenticationPrincipal User user,
+                                                              @RequestParam(defaultValue = "csv") String format) {
+        OrderExportService.checkFormat(format);
+        Integer ownerId = user.getId();
+        StreamingResponseBody body = out -> orderExportService.exportOwnerOrders(ownerId, format, out);
+        return ResponseEntity.status(200)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + format + "\"")
+                .contentType(OrderExportService.CSV.equals(format)
+                        ? new MediaType("text", "csv")
+                        : new MediaType("application", "x-ndjson"))
+                .body(body);
+    }
+
     @GetMapping("/get-all-order-by-foodTruck/{foodTruck_id}")
     public ResponseEntity<?> getAllOrderByFoodTruck(@PathVariable Integer foodTruck_id){
         return ResponseEntity.status(200).body(dashboardService.getOrdersByFoodTruck(foodTruck_id));
     }
 
+    // AI analyses run as background jobs: these return the QUEUED job, poll /ai-jobs/{jobId} for the result
+    @PostMapping("/analyze-reviews/{foodTruckId}")
+    public ResponseEntity<?> analyzeReviews(@AuthenticationPrincipal User user ,@PathVariable Integer foodTruckId) {
+        return ResponseEntity.status(202).body(aiAnalysisJobService.submit(user.getId(), AiResultCache.REVIEWS, foodTruckId));
+    }
+
+    @PostMapping("/analyze-dashboard")
+    public ResponseEntity<?> analyzeDashboard(@AuthenticationPrincipal User user) {
+        return ResponseEntity.status(202).body(aiAnalysisJobService.submit(user.getId(), AiResultCache.DASHBOARD, null));
+    }
+
+    @PostMapping("/analyze-best-spot")
+    public ResponseEntity<?> analyzeBestSpot(@AuthenticationPrincipal User user) {
+        return ResponseEntity.status(202).body(aiAnalysisJobService.submit(user.getId(), AiResultCache.BEST_SPOT, null));
+    }
+
+    // the original synchronous routes, kept for existing clients: the result itself is returned with 200, but the
+    // analysis runs on the AI job pool and the servlet thread is released until it completes (async response)
     @GetMapping("/analyze-reviews/{foodTruckId}")
-    public ResponseEntity<ReviewAnalyzerDtoOut> analyzeReviews(@AuthenticationPrincipal User user ,@PathVariable Integer foodTruckId) {
-        return dashboardService.reviewAnalyzer(user.getId(), foodTruckId);
+    public CompletableFuture<ResponseEntity<Object>> analyzeReviewsNow(@AuthenticationPrincipal User user ,@PathVariable Integer foodTruckId) {
+        return aiAnalysisJobService.analyzeNow(user.getId(), AiResultCache.REVIEWS, foodTruckId).thenApply(ResponseEntity::ok);
     }
 
     @GetMapping("/analyze-dashboard")
-    public ResponseEntity<DashBoardAnalyzerDtoOut> analyzeDashboard(@AuthenticationPrincipal User user) {
-        return dashboardService.analyzeDashboard(user.getId());
+    public CompletableFuture<ResponseEntity<Object>> analyzeDashboardNow(@AuthenticationPrincipal User user) {
+        return aiAnalysisJobService.analyzeNow(user.getId(), AiResultCache.DASHBOARD, null).thenApply(ResponseEntity::ok);
     }
 
-    // New endpoint for best spot analysis
     @GetMapping("/analyze-best-spot")
-    public ResponseEntity<BestSpotAnalyzerDtoOut> analyzeBestSpot(@AuthenticationPrincipal User user) {
-        return dashboardService.analyzeBestSpot(user.getId());
+    public CompletableFuture<ResponseEntity<Object>> analyzeBestSpotNow(@AuthenticationPrincipal User user) {
+        return aiAnalysisJobService.analyzeNow(user.getId(), AiResultCache.BEST_SPOT, null).thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping("/ai-jobs/{jobId}")
+    public ResponseEntity<?> getAiJob(@AuthenticationPrincipal User user, @PathVariable Long jobId) {
+        return ResponseEntity.status(200).body(aiAnalysisJobService.getJob(user.getId(), jobId));
+    }
+
+    // live PLACED -> PAID -> READY -> COMPLETED transitions of one food truck (text/event-stream)
+    @GetMapping(value = "/order-stream/{foodTruckId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrders(@AuthenticationPrincipal User user, @PathVariable Integer foodTruckId) {
+        return orderStreamService.subscribe(user.getId(), foodTruckId);
     }
 
     @GetMapping("/get-Placed-orders")
-    public ResponseEntity<?> getPlacedOrders(@AuthenticationPrincipal User user) {
-        return ResponseEntity.status(200).body(dashboardService.getPLACEDOrdersByOwner(user.getId()));
+    public ResponseEntity<?> getPlacedOrders(@AuthenticationPrincipal User user,
+                                    @RequestParam(required = false) Integer foodTruckId,
+                                    @RequestParam(defaultValue = "0") Integer page,
+                                    @RequestParam(defaultValue = "20") Integer size) {
+        return ResponseEntity.status(200).body(dashboardService.getPLACEDOrdersByOwner(user.getId(), foodTruckId, page, size));
     }
 
     @GetMapping("/get-ready-orders")
-    public ResponseEntity<?> getReadyOrders(@AuthenticationPrincipal User user) {
-        return ResponseEntity.status(200).body(dashboardService.getReadyOrdersByOwner(user.getId()));
+    public ResponseEntity<?> getReadyOrders(@AuthenticationPrincipal User user,
+                                    @RequestParam(required = false) Integer foodTruckId,
+                                    @RequestParam(defaultValue = "0") Integer page,
+                                    @RequestParam(defaultValue = "20") Integer size) {
+        return ResponseEntity.status(200).body(dashboardService.getReadyOrdersByOwner(user.getId(), foodTruckId, page, size));
     }
 
     @GetMapping("/get-completed-orders")
-    public ResponseEntity<?> getOrders(@AuthenticationPrincipal User user) {
-        return ResponseEntity.status(200).body(dashboardService.getCompletedOrdersByOwner(user.getId()));
+    public ResponseEntity<?> getOrders(@AuthenticationPrincipal User user,
+                                    @RequestParam(required = false) Integer foodTruckId,
+                                    @RequestParam(defaultValue = "0") Integer page,
+                                    @RequestParam(defaultValue = "20") Integer size) {
+        return ResponseEntity.status(200).body(dashboardService.getCompletedOrdersByOwner(user.getId(), foodTruckId, page, size));
     }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package org.example.trucksy.Controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-process stand-in for the Moyasar payments API, used to benchmark the payment flow offline.
+// Run with --spring.profiles.active=moyasar-stub (see application-moyasar-stub.properties)
+@Profile("moyasar-stub")
+@RestController
+@RequestMapping("/stub/moyasar/v1/payments")
+public class MoyasarStubController {
+
+    private final Map<String, Map<String, Object>> payments = new ConcurrentHashMap<>();
+
+    @Value("${moyasar.stub.latency:PT0S}")
+    private Duration latency;
+
+    @PostMapping
+    public ResponseEntity<?> createPayment(@RequestParam Map<String, String> form) {
+        simulateLatency();
+
+        // like Moyasar, a given_id becomes the payment id and sending it again does not create a second payment
+        String id = form.getOrDefault("given_id", UUID.randomUUID().toString());
+        Map<String, Object> existing = payments.get(id);
+        if (existing != null) {
+            return ResponseEntity.ok(existing);
+        }
+
+        Map<String, Object> source = new LinkedHashMap<>();
+        source.put("type", "creditcard");
+        source.put("name", form.get("source[name]"));
+        source.put("transaction_url", "/stub/moyasar/v1/payments/" + id + "/3ds");
+
+        Map<String, Object> payment = new LinkedHashMap<>();
+        payment.put("id", id);
+        payment.put("status", "initiated");
+        payment.put("amount", Integer.parseInt(form.getOrDefault("amount", "0")));
+        payment.put("currency", form.getOrDefault("currency", "SAR"));
+        payment.put("callback_url", form.get("callback_url"));
+        payment.put("source", source);
+        payments.put(id, payment);
+
+        return ResponseEntity.status(201).body(payment);
+    }
+
+    // the stub treats every payment as completed by the payer once it is fetched
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getPayment(@PathVariable String id) {
+        simulateLatency();
+
+        Map<String, Object> payment = payments.get(id);
+        if (payment == null) {
+            return ResponseEntity.status(404).body(Map.of("type", "invalid_request_error", "message", "Object not found"));
+        }
+        Map<String, Object> paid = new LinkedHashMap<>(payment);
+        paid.put("status", "paid");
+        return ResponseEntity.ok(paid);
+    }
+
+    private void simulateLatency() {
+        if (latency.isZero()) return;
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -6,13 +6,13 @@ import org.example.trucksy.Api.ApiResponse;
 import org.example.trucksy.DTO.LiensDtoIn;
 import org.example.trucksy.DTO.OrderDtoIn;
 import org.example.trucksy.DTO.OrderDtoOut;
+import org.example.trucksy.DTO.OrderPageDtoOut;
 import org.example.trucksy.Model.User;
 import org.example.trucksy.Service.OrderService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Set;
 
 @RestController
@@ -41,6 +41,12 @@ public class OrderController {
         return orderService.handlePaymentCallback(orderId, transaction_id, status, message);
     }
 
+    // Poll the payment handle of a placed order until the Moyasar transaction url is ready
+    @GetMapping("/payment/order/{orderId}")
+    public ResponseEntity<?> getPaymentHandle(@AuthenticationPrincipal User user, @PathVariable Integer orderId) {
+        return ResponseEntity.status(200).body(orderService.getPaymentHandle(user.getId(), orderId));
+    }
+
     // Get payment status
     @GetMapping("/payment/status/{paymentId}")
     public ResponseEntity<?> getPaymentStatus(@PathVariable String paymentId) {
@@ -69,14 +75,19 @@ public class OrderController {
         ));
     }
 
+    // newest first, paged by an opaque cursor: pass nextCursor from the previous page to continue
     @GetMapping("/foodtruck/{foodTruckId}")
-    public ResponseEntity<List<OrderDtoOut>> getOrdersForFoodTruck(@PathVariable Integer foodTruckId) {
-        return ResponseEntity.status(200).body(orderService.getOrdersForFoodTruckDto(foodTruckId));
+    public ResponseEntity<OrderPageDtoOut> getOrdersForFoodTruck(@PathVariable Integer foodTruckId,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer size) {
+        return ResponseEntity.status(200).body(orderService.getOrdersForFoodTruckDto(foodTruckId, cursor, size));
     }
 
     @GetMapping("/client")
-    public ResponseEntity<List<OrderDtoOut>> getOrdersForClient(@AuthenticationPrincipal User user) {
-        return ResponseEntity.status(200).body(orderService.getOrdersForClientDto(user.getId()));
+    public ResponseEntity<OrderPageDtoOut> getOrdersForClient(@AuthenticationPrincipal User user,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer size) {
+        return ResponseEntity.status(200).body(orderService.getOrdersForClientDto(user.getId(), cursor, size));
     }
 
     @GetMapping("/foodtruck/{foodTruckId}/{orderId}")
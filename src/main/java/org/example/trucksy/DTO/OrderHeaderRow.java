@@ -0,0 +1,16 @@
+package org.example.trucksy.DTO;
+
+// flat projection of an order with its client and food truck summary (JPQL constructor expression, not an entity)
+public record OrderHeaderRow(
+        Integer id,
+        String status,
+        Double totalPrice,
+        Integer clientId,
+        String clientUsername,
+        String clientEmail,
+        String clientPhone,
+        Integer foodTruckId,
+        String foodTruckName,
+        String foodTruckCategory,
+        String foodTruckStatus
+) {}
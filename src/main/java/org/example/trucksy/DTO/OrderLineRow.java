@@ -0,0 +1,10 @@
+package org.example.trucksy.DTO;
+
+// one order line projected together with its order id, so a page of lines can be grouped per order
+public record OrderLineRow(
+        Integer orderId,
+        Integer itemId,
+        String itemName,
+        Integer quantity,
+        Double unitPriceAtPurchase
+) {}
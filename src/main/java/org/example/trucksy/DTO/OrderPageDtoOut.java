@@ -0,0 +1,19 @@
+package org.example.trucksy.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderPageDtoOut {
+    // one page of order history, newest first; pass nextCursor back to get the following page
+    private List<OrderDtoOut> orders;
+    private String nextCursor;
+    private Boolean hasMore;
+}
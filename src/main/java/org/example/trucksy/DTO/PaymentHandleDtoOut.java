@@ -0,0 +1,19 @@
+package org.example.trucksy.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaymentHandleDtoOut {
+    // returned right after the order is placed, the client polls it until transactionUrl is ready
+    private Integer orderId;
+    private String orderStatus;
+    private String paymentStatus;//PENDING , INITIATED , PAID , FAILED
+    private String paymentId;
+    private String transactionUrl;
+}
@@ -0,0 +1,17 @@
+package org.example.trucksy.DTOOut;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDateTime;
+
+// result is the analysis DTO once status is DONE; error is set when FAILED
+public record AiJobDtoOut(
+        Long jobId,
+        String kind,
+        String status,
+        LocalDateTime createdAt,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        JsonNode result,
+        String error
+) {}
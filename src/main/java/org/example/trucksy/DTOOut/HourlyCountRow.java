@@ -0,0 +1,10 @@
+package org.example.trucksy.DTOOut;
+
+import java.time.LocalDateTime;
+
+// one HOUR rollup bucket of a food truck, as read by the forecaster
+public record HourlyCountRow(
+        Integer foodTruckId,
+        LocalDateTime bucketStart,
+        Integer orderCount
+) {}
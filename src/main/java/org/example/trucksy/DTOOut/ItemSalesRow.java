@@ -0,0 +1,9 @@
+package org.example.trucksy.DTOOut;
+
+// quantity sold of one item across an owner's paid orders
+public record ItemSalesRow(
+        Integer ownerId,
+        Integer itemId,
+        String itemName,
+        Long quantity
+) {}
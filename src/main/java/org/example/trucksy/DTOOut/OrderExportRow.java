@@ -0,0 +1,17 @@
+package org.example.trucksy.DTOOut;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// one line of the owner order export
+public record OrderExportRow(
+        Integer orderId,
+        LocalDate orderDate,
+        LocalDateTime orderedAt,
+        Integer foodTruckId,
+        String foodTruckName,
+        String clientName,
+        String status,
+        String paymentStatus,
+        Double totalPrice
+) {}
@@ -0,0 +1,13 @@
+package org.example.trucksy.DTOOut;
+
+import java.time.LocalDate;
+
+// the columns of OrderFactStore, read straight from orders without loading entities
+public record OrderFactRow(
+        Integer orderId,
+        Integer ownerId,
+        Integer foodTruckId,
+        LocalDate orderDate,
+        Double totalPrice,
+        String status
+) {}
@@ -0,0 +1,21 @@
+package org.example.trucksy.DTOOut;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderQueueDtoOut {
+
+    // one page of an owner's orders in a single status (PLACED / READY / COMPLETED), newest first
+    private String status;
+    private List<OrderDashboardDTOOut> orders;
+    private Integer page;
+    private Integer size;
+    private Long totalOrders;
+    private Integer totalPages;
+}
@@ -0,0 +1,18 @@
+package org.example.trucksy.DTOOut;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderStatusStreamDtoOut {
+
+    // payload of an "order-status" SSE event pushed to the owner's open dashboards
+    private Integer orderId;
+    private Integer foodTruckId;
+    private String previousStatus;
+    private String status;
+    private Double totalPrice;
+}
@@ -0,0 +1,13 @@
+package org.example.trucksy.DTOOut;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public record OwnerAnalyticsDtoOut(
+        Map<Integer, Double> revenueByFoodTruck,
+        Map<String, Long> statusMix,
+        List<DailyPoint> dailyTrend
+) {
+    public record DailyPoint(LocalDate date, Long orders, Double revenue) {}
+}
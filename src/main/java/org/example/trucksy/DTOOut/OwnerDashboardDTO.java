@@ -4,7 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Data
 @AllArgsConstructor
@@ -18,5 +18,5 @@ public class OwnerDashboardDTO {
     private Integer predictedOrders;
     private String peakOrders;
     private String topSellingItems;
-    private LocalDate updateDate;
+    private LocalDateTime updateDate;
 }
@@ -0,0 +1,12 @@
+package org.example.trucksy.DTOOut;
+
+// all order aggregates of one owner, computed in a single grouped pass over orders
+public record OwnerOrderStats(
+        Long totalOrders,
+        Long completedOrders,
+        Double revenue,
+        Long placedOrders,
+        Long paidOrders,
+        Long readyOrders,
+        Long cancelledOrders
+) {}
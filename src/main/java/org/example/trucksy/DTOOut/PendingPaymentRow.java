@@ -0,0 +1,14 @@
+package org.example.trucksy.DTOOut;
+
+import java.time.LocalDateTime;
+
+// a PLACED order whose Moyasar payment still has to be started, or reconciled by its given_id (paymentId)
+public record PendingPaymentRow(
+        Integer orderId,
+        Integer clientId,
+        Integer foodTruckId,
+        Integer ownerId,
+        Double totalPrice,
+        LocalDateTime orderedAt,
+        String paymentId
+) {}
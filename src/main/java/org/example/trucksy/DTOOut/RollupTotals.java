@@ -0,0 +1,10 @@
+package org.example.trucksy.DTOOut;
+
+// sum of an owner's rollup buckets over a period; revenue is gross order value, completedRevenue completed orders only
+public record RollupTotals(
+        Long orders,
+        Double revenue,
+        Long completed,
+        Double completedRevenue,
+        Long cancelled
+) {}
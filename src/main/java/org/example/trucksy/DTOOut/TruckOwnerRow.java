@@ -0,0 +1,6 @@
+package org.example.trucksy.DTOOut;
+
+public record TruckOwnerRow(
+        Integer foodTruckId,
+        Integer ownerId
+) {}
@@ -0,0 +1,17 @@
+package org.example.trucksy.Event;
+
+import java.time.LocalDateTime;
+
+// published by OrderService whenever an order enters a new status (PLACED , PAID , READY , COMPLETED , CANCELLED);
+// orderedAt is when the order was placed, whatever the new status; only its day when orderedAtEstimated
+public record OrderStatusChangedEvent(
+        Integer orderId,
+        Integer clientId,
+        Integer foodTruckId,
+        Integer ownerId,
+        String previousStatus,
+        String status,
+        Double totalPrice,
+        LocalDateTime orderedAt,
+        boolean orderedAtEstimated
+) {}
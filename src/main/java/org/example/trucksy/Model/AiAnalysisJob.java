@@ -0,0 +1,50 @@
+package org.example.trucksy.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// one requested AI analysis; QUEUED -> RUNNING -> DONE / FAILED
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+public class AiAnalysisJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Integer ownerId;
+
+    @Column(columnDefinition = "varchar(20) not null")
+    private String kind;//DASHBOARD , BEST_SPOT , REVIEWS
+
+    private Integer foodTruckId;//REVIEWS only
+
+    @Column(columnDefinition = "varchar(20) not null")
+    private String status;//QUEUED , RUNNING , DONE , FAILED
+
+    @Column(columnDefinition = "text")
+    private String resultJson;
+
+    @Column(length = 500)
+    private String error;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    // renewed by the instance holding the job while it is QUEUED or RUNNING
+    private LocalDateTime heartbeatAt;
+}
@@ -0,0 +1,38 @@
+package org.example.trucksy.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// parsed AI analysis stored under the sha-256 of its prompt inputs; reused until expiresAt
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+public class AiAnalysisResult {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(columnDefinition = "varchar(20) not null")
+    private String kind;//DASHBOARD , BEST_SPOT , REVIEWS
+
+    @Column(columnDefinition = "char(64) not null", unique = true)
+    private String fingerprint;
+
+    @Column(columnDefinition = "text not null")
+    private String resultJson;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -10,7 +10,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Getter
 @Setter
@@ -37,7 +37,7 @@ public class Dashboard {
     // todo check if we want this object of item
     private String topSellingItems;
 
-    private LocalDate updateDate;
+    private LocalDateTime updateDate;
 
     @OneToOne
     @MapsId
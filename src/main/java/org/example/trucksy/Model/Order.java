@@ -9,6 +9,7 @@ import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -29,8 +30,28 @@ public class Order {
     @CreationTimestamp
     private LocalDate orderDate;
 
+    // full-precision placement time (orderDate is kept for existing readers)
+    @CreationTimestamp
+    private LocalDateTime orderedAt;
+
+    // orders from before orderedAt existed only know their day: orderedAt is that midnight, so no hourly stats
+    private Boolean orderedAtEstimated = false;
+
     private Double totalPrice;
 
+    // Moyasar payment handle, filled in by OrderPaymentService after the order is committed
+    private String paymentId;
+
+    private String paymentStatus;//PENDING , STARTING , UNKNOWN , INITIATED , PAID , FAILED
+
+    // when the Moyasar create was last sent; a STARTING/UNKNOWN order older than the stall window is reconciled
+    private LocalDateTime paymentStartedAt;
+
+    private String paymentUrl;
+
+    // why starting the payment failed (gateway error, missing card), kept for support
+    @Column(length = 500)
+    private String paymentError;
 
     @ManyToOne
     @JsonIgnore
@@ -0,0 +1,43 @@
+package org.example.trucksy.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// per food truck order totals for one hour or one day, maintained by OrderRollupService as orders change.
+// Every count lands in the bucket of the order's orderedAt; revenue is the gross value of the orders placed
+// (any later status), completedRevenue only that of the orders that were completed.
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_order_rollup_bucket",
+        columnNames = {"food_truck_id", "granularity", "bucket_start"}))
+public class OrderRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Integer foodTruckId;
+
+    @Column(columnDefinition = "varchar(4) not null")
+    private String granularity;//HOUR , DAY
+
+    private LocalDateTime bucketStart;
+
+    private Integer orderCount;
+
+    private Double revenue;
+
+    private Integer completedCount;
+
+    private Double completedRevenue;
+
+    private Integer cancelledCount;
+}
@@ -0,0 +1,44 @@
+package org.example.trucksy.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// side effect written in the same transaction as the business change, delivered later by OutboxService
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(columnDefinition = "varchar(20) not null")
+    private String channel;//WHATSAPP , ORDER_INVOICE
+
+    @Column(columnDefinition = "text not null")
+    private String payload;
+
+    @Column(columnDefinition = "varchar(20) not null")
+    private String status;//PENDING , IN_FLIGHT , SENT , FAILED
+
+    private Integer attempts;
+
+    private LocalDateTime nextAttemptAt;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+
+    @Column(length = 500)
+    private String lastError;
+}
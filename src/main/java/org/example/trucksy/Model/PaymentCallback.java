@@ -0,0 +1,34 @@
+package org.example.trucksy.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// one row per Moyasar transaction that was processed; the unique transaction id rejects duplicate deliveries
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+public class PaymentCallback {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(columnDefinition = "varchar(64) not null", unique = true)
+    private String transactionId;
+
+    @Column(columnDefinition = "varchar(20) not null")
+    private String target;//ORDER , SUBSCRIPTION
+
+    private Integer targetId;
+
+    @CreationTimestamp
+    private LocalDateTime receivedAt;
+}
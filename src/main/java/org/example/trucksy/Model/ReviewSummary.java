@@ -0,0 +1,49 @@
+package org.example.trucksy.Model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Version;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+// rolling AI summary of a food truck's reviews; covers every commented review with id <= lastReviewId
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+public class ReviewSummary {
+
+    @Id
+    private Integer foodTruckId;
+
+    private Integer lastReviewId;
+
+    private Integer reviewCount;
+
+    private Integer positiveComments;
+
+    private Integer negativeComments;
+
+    private Integer trueNegativeReviews;
+
+    private Integer truePositiveReviews;
+
+    @Column(columnDefinition = "text")
+    private String adviceBasedOnReviews;
+
+    private String mostComplaintPoint;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    // two analyses folding the same batch in parallel: the second save fails instead of adding it twice
+    @Version
+    private Long version;
+}
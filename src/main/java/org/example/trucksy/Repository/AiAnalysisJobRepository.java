@@ -0,0 +1,42 @@
+package org.example.trucksy.Repository;
+
+import org.example.trucksy.Model.AiAnalysisJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface AiAnalysisJobRepository extends JpaRepository<AiAnalysisJob, Long> {
+
+    Optional<AiAnalysisJob> findByIdAndOwnerId(Long id, Integer ownerId);
+
+    @Modifying
+    @Transactional
+    @Query("""
+        update AiAnalysisJob j set j.heartbeatAt = :now
+        where j.id in :ids and j.status in ('QUEUED', 'RUNNING')
+    """)
+    int renewHeartbeat(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // jobs are queued in memory, so an unfinished job nobody renewed was lost with the instance holding it
+    @Modifying
+    @Transactional
+    @Query("""
+        update AiAnalysisJob j
+        set j.status = 'FAILED', j.error = 'Interrupted by a restart, please submit again', j.finishedAt = :now
+        where j.status in ('QUEUED', 'RUNNING') and j.heartbeatAt < :staleBefore
+    """)
+    int failExpired(@Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Transactional
+    @Query("delete from AiAnalysisJob j where j.finishedAt < :before")
+    int deleteFinishedBefore(@Param("before") LocalDateTime before);
+}
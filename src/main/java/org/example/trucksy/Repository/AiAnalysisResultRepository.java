@@ -0,0 +1,25 @@
+package org.example.trucksy.Repository;
+
+import org.example.trucksy.Model.AiAnalysisResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface AiAnalysisResultRepository extends JpaRepository<AiAnalysisResult, Long> {
+
+    Optional<AiAnalysisResult> findByFingerprintAndExpiresAtAfter(String fingerprint, LocalDateTime now);
+
+    Optional<AiAnalysisResult> findByFingerprint(String fingerprint);
+
+    @Modifying
+    @Transactional
+    @Query("delete from AiAnalysisResult r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
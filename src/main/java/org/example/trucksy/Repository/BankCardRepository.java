@@ -2,7 +2,15 @@ package org.example.trucksy.Repository;
 
 import org.example.trucksy.Model.BankCard;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface BankCardRepository extends JpaRepository<BankCard, Integer> {
     BankCard findBankCardById(Integer id);
+
+    // single UPDATE instead of read-modify-write, so concurrent callbacks cannot lose a deduction
+    @Modifying
+    @Query("update BankCard b set b.amount = b.amount - :amount where b.id = :userId")
+    int deductAmount(@Param("userId") Integer userId, @Param("amount") double amount);
 }
@@ -1,11 +1,111 @@
 package org.example.trucksy.Repository;
 
+import org.example.trucksy.DTOOut.OwnerDashboardDTO;
 import org.example.trucksy.Model.Dashboard;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Repository
 public interface DashboardRepository extends JpaRepository<Dashboard, Integer> {
 
     Dashboard findDashboardById(Integer id);
+
+    // the whole owner dashboard in one primary-key lookup
+    @Query("""
+        select new org.example.trucksy.DTOOut.OwnerDashboardDTO(
+            u.username, d.totalOrders, d.totalRevenue, d.totalCompletedOrders,
+            d.predictedOrders, d.peakOrders, d.topSellingItems, d.updateDate)
+        from Dashboard d
+        join d.owner o
+        join o.user u
+        where d.id = :ownerId
+    """)
+    OwnerDashboardDTO findOwnerDashboardById(@Param("ownerId") Integer ownerId);
+
+    @Query("select d.id from Dashboard d")
+    List<Integer> findAllIds();
+
+    // incremental counters, applied in the same transaction as the order change
+    @Modifying
+    @Query("""
+        update Dashboard d
+        set d.totalOrders = coalesce(d.totalOrders, 0) + 1,
+            d.totalRevenue = coalesce(d.totalRevenue, 0) + :amount
+        where d.id = :ownerId
+    """)
+    int incrementOrders(@Param("ownerId") Integer ownerId, @Param("amount") Double amount);
+
+    @Modifying
+    @Query("""
+        update Dashboard d
+        set d.totalCompletedOrders = coalesce(d.totalCompletedOrders, 0) + 1
+        where d.id = :ownerId
+    """)
+    int incrementCompletedOrders(@Param("ownerId") Integer ownerId);
+
+    // exact recompute of one owner in a single statement, so an order committed meanwhile is either
+    // counted here or applied by the incremental update afterwards, never lost between a read and a write
+    @Modifying
+    @Transactional
+    @Query(value = """
+        update dashboard d
+        left join (
+            select ft.owner_user_id as owner_id,
+                   count(*) as total_orders,
+                   sum(o.status = 'COMPLETED') as completed_orders,
+                   sum(o.total_price) as revenue
+            from orders o
+            join food_truck ft on ft.id = o.food_truck_id
+            where ft.owner_user_id = :ownerId
+            group by ft.owner_user_id
+        ) agg on agg.owner_id = d.owner_user_id
+        set d.total_orders = coalesce(agg.total_orders, 0),
+            d.total_completed_orders = coalesce(agg.completed_orders, 0),
+            d.total_revenue = coalesce(agg.revenue, 0),
+            d.update_date = :updatedAt
+        where d.owner_user_id = :ownerId
+    """, nativeQuery = true)
+    int recomputeCounters(@Param("ownerId") Integer ownerId, @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying
+    @Transactional
+    @Query("update Dashboard d set d.peakOrders = :peakOrders where d.id = :ownerId")
+    int setPeakOrders(@Param("ownerId") Integer ownerId, @Param("peakOrders") String peakOrders);
+
+    @Modifying
+    @Transactional
+    @Query("update Dashboard d set d.topSellingItems = :topSellingItems where d.id = :ownerId")
+    int setTopSellingItems(@Param("ownerId") Integer ownerId, @Param("topSellingItems") String topSellingItems);
+
+    @Modifying
+    @Transactional
+    @Query("update Dashboard d set d.predictedOrders = :predictedOrders where d.id = :ownerId")
+    int setPredictedOrders(@Param("ownerId") Integer ownerId, @Param("predictedOrders") Integer predictedOrders);
+
+    // nightly drift repair for every owner in one statement: one grouped scan of orders joined back to dashboard
+    @Modifying
+    @Transactional
+    @Query(value = """
+        update dashboard d
+        left join (
+            select ft.owner_user_id as owner_id,
+                   count(*) as total_orders,
+                   sum(o.status = 'COMPLETED') as completed_orders,
+                   sum(o.total_price) as revenue
+            from orders o
+            join food_truck ft on ft.id = o.food_truck_id
+            group by ft.owner_user_id
+        ) agg on agg.owner_id = d.owner_user_id
+        set d.total_orders = coalesce(agg.total_orders, 0),
+            d.total_completed_orders = coalesce(agg.completed_orders, 0),
+            d.total_revenue = coalesce(agg.revenue, 0)
+    """, nativeQuery = true)
+    int recomputeAllCounters();
 }
@@ -1,7 +1,9 @@
 package org.example.trucksy.Repository;
 
+import org.example.trucksy.DTOOut.TruckOwnerRow;
 import org.example.trucksy.Model.FoodTruck;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,4 +16,7 @@ public interface FoodTruckRepository extends JpaRepository<FoodTruck, Integer> {
 
     List<FoodTruck> findFoodTruckByCategory(String category);
 
+    @Query("select new org.example.trucksy.DTOOut.TruckOwnerRow(ft.id, ft.owner.id) from FoodTruck ft")
+    List<TruckOwnerRow> findAllTruckOwners();
+
 }
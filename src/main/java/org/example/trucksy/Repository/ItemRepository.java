@@ -2,8 +2,11 @@ package org.example.trucksy.Repository;
 
 import org.example.trucksy.Model.Item;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,7 +18,14 @@ public interface ItemRepository extends JpaRepository<Item, Integer> {
 
     List<Item> findByFoodTruck_IdAndIsAvailableTrueAndPriceBetween(Integer foodTruckId, Double min, Double max);
 
-
+    // resolve a whole cart in one round trip (item + its food truck + its discount)
+    @Query("""
+        select i from Item i
+        left join fetch i.foodTruck
+        left join fetch i.discount
+        where i.id in :ids
+    """)
+    List<Item> findAllWithFoodTruckAndDiscountByIdIn(@Param("ids") Collection<Integer> ids);
 
 
 }
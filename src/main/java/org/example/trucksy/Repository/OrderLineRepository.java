@@ -0,0 +1,40 @@
+package org.example.trucksy.Repository;
+
+import org.example.trucksy.DTOOut.ItemSalesRow;
+import org.example.trucksy.Model.OrderLine;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderLineRepository extends JpaRepository<OrderLine, Integer> {
+
+    // exact units sold per owner and item over every paid order, largest first within each owner
+    @Query("""
+        select new org.example.trucksy.DTOOut.ItemSalesRow(ft.owner.id, i.id, i.name, sum(l.quantity))
+        from OrderLine l
+        join l.order o
+        join o.foodTruck ft
+        join l.item i
+        where o.status in ('PAID', 'READY', 'COMPLETED')
+        group by ft.owner.id, i.id, i.name
+        order by ft.owner.id, sum(l.quantity) desc
+    """)
+    List<ItemSalesRow> sumQuantityByOwnerAndItem();
+
+    // the same for one owner, to seed its sketch after a restart
+    @Query("""
+        select new org.example.trucksy.DTOOut.ItemSalesRow(ft.owner.id, i.id, i.name, sum(l.quantity))
+        from OrderLine l
+        join l.order o
+        join o.foodTruck ft
+        join l.item i
+        where ft.owner.id = :ownerId and o.status in ('PAID', 'READY', 'COMPLETED')
+        group by ft.owner.id, i.id, i.name
+        order by sum(l.quantity) desc
+    """)
+    List<ItemSalesRow> sumQuantityByItemForOwner(@Param("ownerId") Integer ownerId);
+}
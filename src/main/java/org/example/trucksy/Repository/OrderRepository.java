@@ -1,45 +1,119 @@
 package org.example.trucksy.Repository;
 
+import jakarta.persistence.QueryHint;
+import org.example.trucksy.DTO.OrderHeaderRow;
+import org.example.trucksy.DTO.OrderLineRow;
+import org.example.trucksy.DTOOut.OrderDashboardDTOOut;
+import org.example.trucksy.DTOOut.OrderExportRow;
+import org.example.trucksy.DTOOut.OrderFactRow;
+import org.example.trucksy.DTOOut.OwnerOrderStats;
+import org.example.trucksy.DTOOut.PendingPaymentRow;
 import org.example.trucksy.Model.Order;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Integer> {
     List<Order> findByFoodTruck_IdOrderByIdDesc(Integer foodTruckId);
     Optional<Order> findByIdAndFoodTruck_Id(Integer orderId, Integer foodTruckId);
-    List<Order> findByClient_IdOrderByIdDesc(Integer clientId);
 
+    // keyset pages of order ids (newest first), served by the food_truck_id / client_id indexes
     @Query("""
-   select coalesce(sum(o.totalPrice), 0)
-   from Order o
-   where o.foodTruck.owner.id = :ownerUserId
-""")
-    Double sumRevenueByOwner(@Param("ownerUserId") Integer ownerUserId);
+        select o.id from Order o
+        where o.foodTruck.id = :foodTruckId and o.id < :beforeId
+        order by o.id desc
+    """)
+    List<Integer> findIdPageByFoodTruck(@Param("foodTruckId") Integer foodTruckId,
+                                        @Param("beforeId") Integer beforeId,
+                                        Pageable pageable);
 
+    @Query("""
+        select o.id from Order o
+        where o.client.id = :clientId and o.id < :beforeId
+        order by o.id desc
+    """)
+    List<Integer> findIdPageByClient(@Param("clientId") Integer clientId,
+                                     @Param("beforeId") Integer beforeId,
+                                     Pageable pageable);
 
+    // read path for order DTOs: plain projections, nothing enters the persistence context
     @Query("""
-   select count(o)
-   from Order o
-   where o.foodTruck.owner.id = :ownerUserId
-""")
-    Integer countOrdersByOwner(@Param("ownerUserId") Integer ownerUserId);
+        select new org.example.trucksy.DTO.OrderHeaderRow(
+            o.id, o.status, o.totalPrice,
+            c.id, u.username, u.email, u.phoneNumber,
+            ft.id, ft.name, ft.category, ft.status)
+        from Order o
+        left join o.client c
+        left join c.user u
+        left join o.foodTruck ft
+        where o.id in :ids
+    """)
+    List<OrderHeaderRow> findOrderHeadersByIdIn(@Param("ids") Collection<Integer> ids);
 
-    boolean existsByClientIdAndFoodTruckId(Integer clientId, Integer foodTruckId);
+    @Query("""
+        select new org.example.trucksy.DTO.OrderLineRow(
+            l.order.id, i.id, i.name, l.quantity, l.unitPriceAtPurchase)
+        from OrderLine l
+        left join l.item i
+        where l.order.id in :orderIds
+        order by l.id
+    """)
+    List<OrderLineRow> findOrderLinesByOrderIdIn(@Param("orderIds") Collection<Integer> orderIds);
+
+    // one pass over the owner's orders instead of a round trip per aggregate
+    @Query("""
+        select new org.example.trucksy.DTOOut.OwnerOrderStats(
+            count(o),
+            coalesce(sum(case when o.status = 'COMPLETED' then 1L else 0L end), 0L),
+            coalesce(sum(o.totalPrice), 0.0),
+            coalesce(sum(case when o.status = 'PLACED' then 1L else 0L end), 0L),
+            coalesce(sum(case when o.status = 'PAID' then 1L else 0L end), 0L),
+            coalesce(sum(case when o.status = 'READY' then 1L else 0L end), 0L),
+            coalesce(sum(case when o.status = 'CANCELLED' then 1L else 0L end), 0L))
+        from Order o
+        where o.foodTruck.owner.id = :ownerId
+    """)
+    OwnerOrderStats findOrderStatsByOwner(@Param("ownerId") Integer ownerId);
 
+    // snapshot for OrderFactStore
     @Query("""
-       select count(o)
-       from Order o
-       where o.foodTruck.owner.id = :ownerId
-         and o.status = 'COMPLETED'
+        select new org.example.trucksy.DTOOut.OrderFactRow(
+            o.id, ft.owner.id, ft.id, o.orderDate, o.totalPrice, o.status)
+        from Order o
+        join o.foodTruck ft
     """)
-    Integer countCompletedOrdersByOwner(@Param("ownerId") Integer ownerId);
+    List<OrderFactRow> findAllOrderFacts();
+
+    // forward-only cursor for the export: MySQL Connector/J streams row by row when the fetch size is
+    // Integer.MIN_VALUE; must be consumed and closed inside a read-only transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("""
+        select new org.example.trucksy.DTOOut.OrderExportRow(
+            o.id, o.orderDate, o.orderedAt, ft.id, ft.name, u.username, o.status, o.paymentStatus, o.totalPrice)
+        from Order o
+        join o.foodTruck ft
+        left join o.client c
+        left join c.user u
+        where ft.owner.id = :ownerId
+        order by o.id
+    """)
+    Stream<OrderExportRow> streamExportRowsByOwner(@Param("ownerId") Integer ownerId);
+
+    boolean existsByClientIdAndFoodTruckId(Integer clientId, Integer foodTruckId);
 
 //    @Query("""
 //       select count(o)
@@ -64,6 +138,117 @@ public interface OrderRepository extends JpaRepository<Order, Integer> {
     List<Order> findByOwnerIdOrderByOrderDateDesc(@Param("ownerId") Integer ownerId);
 
 
-    List<Order> findAllByStatus(String status);
+    // owner / truck status queues, served by idx_orders_truck_status_date (food_truck_id, status, order_date)
+    @Query(value = """
+        select new org.example.trucksy.DTOOut.OrderDashboardDTOOut(o.id, o.orderDate, u.username, o.totalPrice, o.status)
+        from Order o
+        join o.foodTruck ft
+        left join o.client c
+        left join c.user u
+        where ft.owner.id = :ownerId and o.status = :status
+        order by o.orderDate desc, o.id desc
+    """, countQuery = """
+        select count(o) from Order o
+        where o.foodTruck.owner.id = :ownerId and o.status = :status
+    """)
+    Page<OrderDashboardDTOOut> findStatusQueueByOwner(@Param("ownerId") Integer ownerId,
+                                                      @Param("status") String status,
+                                                      Pageable pageable);
+
+    @Query(value = """
+        select new org.example.trucksy.DTOOut.OrderDashboardDTOOut(o.id, o.orderDate, u.username, o.totalPrice, o.status)
+        from Order o
+        left join o.client c
+        left join c.user u
+        where o.foodTruck.id = :foodTruckId and o.status = :status
+        order by o.orderDate desc, o.id desc
+    """, countQuery = """
+        select count(o) from Order o
+        where o.foodTruck.id = :foodTruckId and o.status = :status
+    """)
+    Page<OrderDashboardDTOOut> findStatusQueueByFoodTruck(@Param("foodTruckId") Integer foodTruckId,
+                                                          @Param("status") String status,
+                                                          Pageable pageable);
+
+    // only while the start is in flight: a callback that already marked the order PAID is never overwritten
+    @Modifying
+    @Transactional
+    @Query("""
+        update Order o
+        set o.paymentId = :paymentId, o.paymentStatus = :paymentStatus, o.paymentUrl = :paymentUrl
+        where o.id = :orderId and o.status = 'PLACED' and o.paymentStatus in ('STARTING', 'UNKNOWN')
+    """)
+    int updatePaymentHandle(@Param("orderId") Integer orderId,
+                            @Param("paymentId") String paymentId,
+                            @Param("paymentStatus") String paymentStatus,
+                            @Param("paymentUrl") String paymentUrl);
+
+    // only one of the executor task and the sweep gets to call Moyasar for an order
+    @Modifying
+    @Transactional
+    @Query("""
+        update Order o
+        set o.paymentStatus = 'STARTING', o.paymentId = :paymentId, o.paymentStartedAt = :now
+        where o.id = :orderId and o.status = 'PLACED' and o.paymentStatus = 'PENDING'
+    """)
+    int claimPaymentStart(@Param("orderId") Integer orderId,
+                          @Param("paymentId") String paymentId,
+                          @Param("now") LocalDateTime now);
+
+    // Moyasar did not answer (timeout, I/O error): it may still have created the payment, so the order stays PLACED
+    @Modifying
+    @Transactional
+    @Query("""
+        update Order o
+        set o.paymentStatus = 'UNKNOWN', o.paymentError = :error
+        where o.id = :orderId and o.status = 'PLACED' and o.paymentStatus in ('STARTING', 'UNKNOWN')
+    """)
+    int markPaymentUnknown(@Param("orderId") Integer orderId, @Param("error") String error);
+
+    // starts in flight longer than the stall window (timed out, or the instance died mid-call), served by
+    // idx_orders_payment_status_started_at
+    @Query("""
+        select new org.example.trucksy.DTOOut.PendingPaymentRow(o.id, c.id, ft.id, ft.owner.id, o.totalPrice, o.orderedAt, o.paymentId)
+        from Order o
+        join o.foodTruck ft
+        left join o.client c
+        where o.paymentStatus in ('STARTING', 'UNKNOWN') and o.status = 'PLACED'
+          and o.paymentId is not null and o.paymentStartedAt < :startedBefore
+        order by o.id
+    """)
+    List<PendingPaymentRow> findStalledPayments(@Param("startedBefore") LocalDateTime startedBefore, Pageable pageable);
+
+    // one reconciliation per stalled start across instances; the next one waits for another stall window
+    @Modifying
+    @Transactional
+    @Query("""
+        update Order o
+        set o.paymentStartedAt = :now
+        where o.id = :orderId and o.status = 'PLACED' and o.paymentStatus in ('STARTING', 'UNKNOWN')
+          and o.paymentStartedAt < :startedBefore
+    """)
+    int claimPaymentReconcile(@Param("orderId") Integer orderId,
+                              @Param("startedBefore") LocalDateTime startedBefore,
+                              @Param("now") LocalDateTime now);
+
+    // PLACED orders whose payment was never started, served by idx_orders_payment_status_ordered_at
+    @Query("""
+        select new org.example.trucksy.DTOOut.PendingPaymentRow(o.id, c.id, ft.id, ft.owner.id, o.totalPrice, o.orderedAt, o.paymentId)
+        from Order o
+        join o.foodTruck ft
+        left join o.client c
+        where o.paymentStatus = 'PENDING' and o.status = 'PLACED' and o.orderedAt < :placedBefore
+        order by o.id
+    """)
+    List<PendingPaymentRow> findUnstartedPayments(@Param("placedBefore") LocalDateTime placedBefore, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("""
+        update Order o
+        set o.paymentStatus = 'FAILED', o.status = 'CANCELLED', o.paymentError = :error
+        where o.id = :orderId and o.status = 'PLACED'
+    """)
+    int markPaymentFailed(@Param("orderId") Integer orderId, @Param("error") String error);
 
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package org.example.trucksy.Repository;
+
+import org.example.trucksy.DTOOut.HourlyCountRow;
+import org.example.trucksy.DTOOut.RollupTotals;
+import org.example.trucksy.Model.OrderRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderRollupRepository extends JpaRepository<OrderRollup, Long> {
+
+    // creates the bucket on first use, otherwise adds the deltas atomically
+    @Modifying
+    @Transactional
+    @Query(value = """
+        insert into order_rollup
+            (food_truck_id, granularity, bucket_start, order_count, revenue, completed_count, completed_revenue, cancelled_count)
+        values (:foodTruckId, :granularity, :bucketStart, :orders, :revenue, :completed, :completedRevenue, :cancelled)
+        on duplicate key update
+            order_count = order_count + values(order_count),
+            revenue = revenue + values(revenue),
+            completed_count = completed_count + values(completed_count),
+            completed_revenue = completed_revenue + values(completed_revenue),
+            cancelled_count = cancelled_count + values(cancelled_count)
+    """, nativeQuery = true)
+    int addToBucket(@Param("foodTruckId") Integer foodTruckId,
+                    @Param("granularity") String granularity,
+                    @Param("bucketStart") LocalDateTime bucketStart,
+                    @Param("orders") int orders,
+                    @Param("revenue") double revenue,
+                    @Param("completed") int completed,
+                    @Param("completedRevenue") double completedRevenue,
+                    @Param("cancelled") int cancelled);
+
+    @Query("""
+        select new org.example.trucksy.DTOOut.RollupTotals(
+            coalesce(sum(r.orderCount), 0L), coalesce(sum(r.revenue), 0.0),
+            coalesce(sum(r.completedCount), 0L), coalesce(sum(r.completedRevenue), 0.0),
+            coalesce(sum(r.cancelledCount), 0L))
+        from OrderRollup r, FoodTruck ft
+        where ft.id = r.foodTruckId and ft.owner.id = :ownerId
+          and r.granularity = 'DAY' and r.bucketStart >= :since
+    """)
+    RollupTotals sumDailyByOwnerSince(@Param("ownerId") Integer ownerId, @Param("since") LocalDateTime since);
+
+    // hour of day (0-23) with the most orders across the owner's trucks
+    @Query(value = """
+        select hour(r.bucket_start)
+        from order_rollup r
+        join food_truck ft on ft.id = r.food_truck_id
+        where ft.owner_user_id = :ownerId and r.granularity = 'HOUR' and r.bucket_start >= :since
+        group by hour(r.bucket_start)
+        order by sum(r.order_count) desc
+        limit 1
+    """, nativeQuery = true)
+    Integer findPeakHourByOwner(@Param("ownerId") Integer ownerId, @Param("since") LocalDateTime since);
+
+    // hourly history of every truck for the demand forecaster; empty hours have no row
+    @Query("""
+        select new org.example.trucksy.DTOOut.HourlyCountRow(r.foodTruckId, r.bucketStart, r.orderCount)
+        from OrderRollup r
+        where r.granularity = 'HOUR' and r.bucketStart >= :since and r.bucketStart < :until
+    """)
+    List<HourlyCountRow> findHourlyBetween(@Param("since") LocalDateTime since, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Transactional
+    @Query("delete from OrderRollup r where r.granularity = 'HOUR' and r.bucketStart < :before")
+    int deleteHourlyBefore(@Param("before") LocalDateTime before);
+}
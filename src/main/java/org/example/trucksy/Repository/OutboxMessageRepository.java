@@ -0,0 +1,55 @@
+package org.example.trucksy.Repository;
+
+import org.example.trucksy.Model.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    List<OutboxMessage> findTop50ByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(String status, LocalDateTime now);
+
+    // claim a due message for one worker; the lease (nextAttemptAt) lets a crashed claim be picked up again
+    @Modifying
+    @Transactional
+    @Query("""
+        update OutboxMessage m
+        set m.status = 'IN_FLIGHT', m.nextAttemptAt = :leaseUntil
+        where m.id = :id and m.status = 'PENDING'
+    """)
+    int claim(@Param("id") Long id, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // hand a claimed message back untouched when no worker could take it; it is due again at its old time
+    @Modifying
+    @Transactional
+    @Query("""
+        update OutboxMessage m
+        set m.status = 'PENDING', m.nextAttemptAt = :nextAttemptAt
+        where m.id = :id and m.status = 'IN_FLIGHT'
+    """)
+    int release(@Param("id") Long id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Modifying
+    @Transactional
+    @Query("""
+        update OutboxMessage m
+        set m.status = 'PENDING'
+        where m.status = 'IN_FLIGHT' and m.nextAttemptAt < :now
+    """)
+    int releaseExpiredLeases(@Param("now") LocalDateTime now);
+
+    long countByChannelAndStatus(String channel, String status);
+
+    @Query("""
+        select min(m.createdAt) from OutboxMessage m
+        where m.channel = :channel and m.status in ('PENDING', 'IN_FLIGHT')
+    """)
+    LocalDateTime findOldestUndeliveredCreatedAt(@Param("channel") String channel);
+}
@@ -0,0 +1,10 @@
+package org.example.trucksy.Repository;
+
+import org.example.trucksy.Model.PaymentCallback;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PaymentCallbackRepository extends JpaRepository<PaymentCallback, Integer> {
+    boolean existsByTransactionId(String transactionId);
+}
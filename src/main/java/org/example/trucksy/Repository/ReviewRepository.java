@@ -1,6 +1,7 @@
 package org.example.trucksy.Repository;
 
 import org.example.trucksy.Model.Review;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -19,8 +20,15 @@ public interface ReviewRepository extends JpaRepository<Review, Integer> {
     Double findAverageRatingByFoodTruckId(@Param("foodTruckId") Integer foodTruckId);
 
 
-    @Query("SELECT r FROM Review r WHERE r.foodTruck.id = :foodTruckId AND r.comment IS NOT NULL AND r.comment != ''")
-    List<Review> findByFoodTruckIdWithComments(@Param("foodTruckId") Integer foodTruckId);
+    // commented reviews newer than the summary's high-water mark, oldest first
+    @Query("""
+        SELECT r FROM Review r
+        WHERE r.foodTruck.id = :foodTruckId AND r.id > :afterId AND r.comment IS NOT NULL AND r.comment != ''
+        ORDER BY r.id
+    """)
+    List<Review> findCommentedAfter(@Param("foodTruckId") Integer foodTruckId,
+                                    @Param("afterId") Integer afterId,
+                                    Pageable pageable);
 
     @Query("SELECT COUNT(r) FROM Review r WHERE r.foodTruck.id = :foodTruckId")
     Integer countReviewsByFoodTruckId(@Param("foodTruckId") Integer foodTruckId);
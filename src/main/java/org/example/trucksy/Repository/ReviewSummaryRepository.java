@@ -0,0 +1,9 @@
+package org.example.trucksy.Repository;
+
+import org.example.trucksy.Model.ReviewSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReviewSummaryRepository extends JpaRepository<ReviewSummary, Integer> {
+}
@@ -0,0 +1,216 @@
+package org.example.trucksy.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.trucksy.Api.ApiException;
+import org.example.trucksy.DTOOut.AiJobDtoOut;
+import org.example.trucksy.Model.AiAnalysisJob;
+import org.example.trucksy.Model.Owner;
+import org.example.trucksy.Repository.AiAnalysisJobRepository;
+import org.example.trucksy.Repository.OwnerRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Runs the AI analyses off the request thread: submit stores a QUEUED job and hands it to aiJobExecutor,
+// the client polls getJob until the job is DONE or FAILED.
+// Jobs live in this instance's memory, so it renews heartbeatAt on the ones it holds; a QUEUED or RUNNING job
+// whose heartbeat is older than ai.jobs.lease belonged to an instance that died and is failed by any instance.
+// Metrics: ai.jobs.queue.depth / ai.jobs.active gauges, ai.jobs.wait and ai.jobs.run{kind,outcome} timers.
+@Service
+public class AiAnalysisJobService {
+
+    private final AiAnalysisJobRepository aiAnalysisJobRepository;
+    private final OwnerRepository ownerRepository;
+    private final AiDashboardAnalyzerService aiDashboardAnalyzerService;
+    private final BestSpotAnalyzerService bestSpotAnalyzerService;
+    private final AiReviewAnalyzerService aiReviewAnalyzerService;
+    private final ThreadPoolTaskExecutor aiJobExecutor;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // ids of the jobs queued or running on this instance
+    private final Set<Long> heldJobs = ConcurrentHashMap.newKeySet();
+
+    @Value("${ai.jobs.lease:PT2M}")
+    private Duration lease;
+
+    @Value("${ai.jobs.sync-timeout:PT60S}")
+    private Duration syncTimeout;
+
+    public AiAnalysisJobService(AiAnalysisJobRepository aiAnalysisJobRepository,
+                                OwnerRepository ownerRepository,
+                                AiDashboardAnalyzerService aiDashboardAnalyzerService,
+                                BestSpotAnalyzerService bestSpotAnalyzerService,
+                                AiReviewAnalyzerService aiReviewAnalyzerService,
+                                @Qualifier("aiJobExecutor") ThreadPoolTaskExecutor aiJobExecutor,
+                                MeterRegistry meterRegistry) {
+        this.aiAnalysisJobRepository = aiAnalysisJobRepository;
+        this.ownerRepository = ownerRepository;
+        this.aiDashboardAnalyzerService = aiDashboardAnalyzerService;
+        this.bestSpotAnalyzerService = bestSpotAnalyzerService;
+        this.aiReviewAnalyzerService = aiReviewAnalyzerService;
+        this.aiJobExecutor = aiJobExecutor;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("ai.jobs.queue.depth", aiJobExecutor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("ai.jobs.active", aiJobExecutor, ThreadPoolTaskExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    public AiJobDtoOut submit(Integer ownerId, String kind, Integer foodTruckId) {
+        // cheap checks up front so the common mistakes still fail the request itself
+        Owner owner = ownerRepository.findOwnerById(ownerId);
+        if (owner == null) {
+            throw new ApiException("Owner not found");
+        }
+        if (!owner.getSubscribed()) {
+            throw new ApiException("Owner is not subscribed. AI services are only available for subscribers");
+        }
+
+        AiAnalysisJob job = new AiAnalysisJob();
+        job.setOwnerId(ownerId);
+        job.setKind(kind);
+        job.setFoodTruckId(foodTruckId);
+        job.setStatus("QUEUED");
+        job.setHeartbeatAt(LocalDateTime.now());
+        aiAnalysisJobRepository.saveAndFlush(job);
+
+        Long jobId = job.getId();
+        heldJobs.add(jobId);
+        try {
+            aiJobExecutor.execute(() -> run(jobId));
+        } catch (TaskRejectedException e) {
+            heldJobs.remove(jobId);
+            finish(job, "FAILED", null, "Too many analyses in progress");
+            throw new ApiException("Too many analyses in progress, please try again in a minute");
+        }
+        return toDto(job);
+    }
+
+    // for the synchronous GET routes: same analyses, no job record. They run on aiJobExecutor like the jobs (same
+    // bound, same rejection) and the request thread is released while the response waits at most ai.jobs.sync-timeout;
+    // an analysis past that keeps running and lands in the result cache for the next call
+    public CompletableFuture<Object> analyzeNow(Integer ownerId, String kind, Integer foodTruckId) {
+        CompletableFuture<Object> analysis;
+        try {
+            analysis = CompletableFuture.supplyAsync(() -> analyze(kind, ownerId, foodTruckId), aiJobExecutor);
+        } catch (TaskRejectedException e) {
+            throw new ApiException("Too many analyses in progress, please try again in a minute");
+        }
+        return analysis.orTimeout(syncTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof ApiException apiException) {
+                        throw apiException;
+                    }
+                    if (cause instanceof TimeoutException) {
+                        throw new ApiException("The analysis is taking longer than expected, please try again in a minute");
+                    }
+                    throw new ApiException("Analysis failed: " + cause.getMessage());
+                });
+    }
+
+    public AiJobDtoOut getJob(Integer ownerId, Long jobId) {
+        AiAnalysisJob job = aiAnalysisJobRepository.findByIdAndOwnerId(jobId, ownerId)
+                .orElseThrow(() -> new ApiException("Analysis job not found"));
+        return toDto(job);
+    }
+
+    private void run(Long jobId) {
+        try {
+            runHeld(jobId);
+        } finally {
+            heldJobs.remove(jobId);
+        }
+    }
+
+    private void runHeld(Long jobId) {
+        AiAnalysisJob job = aiAnalysisJobRepository.findById(jobId).orElse(null);
+        if (job == null || !"QUEUED".equals(job.getStatus())) {
+            return; // purged, or its lease ran out and another instance failed it
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        meterRegistry.timer("ai.jobs.wait").record(Duration.between(job.getCreatedAt(), startedAt));
+        job.setStatus("RUNNING");
+        job.setStartedAt(startedAt);
+        job.setHeartbeatAt(startedAt);
+        aiAnalysisJobRepository.save(job);
+
+        long begin = System.nanoTime();
+        String outcome = "DONE";
+        try {
+            Object result = analyze(job.getKind(), job.getOwnerId(), job.getFoodTruckId());
+            finish(job, "DONE", objectMapper.writeValueAsString(result), null);
+        } catch (Exception e) {
+            outcome = "FAILED";
+            String error = e instanceof ApiException ? e.getMessage() : "Analysis failed: " + e.getMessage();
+            finish(job, "FAILED", null, error);
+        } finally {
+            meterRegistry.timer("ai.jobs.run", "kind", job.getKind(), "outcome", outcome)
+                    .record(Duration.ofNanos(System.nanoTime() - begin));
+        }
+    }
+
+    private Object analyze(String kind, Integer ownerId, Integer foodTruckId) {
+        return switch (kind) {
+            case AiResultCache.DASHBOARD -> aiDashboardAnalyzerService.analyzeDashboardByOwnerId(ownerId);
+            case AiResultCache.BEST_SPOT -> bestSpotAnalyzerService.analyzeBestSpotByOwnerId(ownerId);
+            case AiResultCache.REVIEWS -> aiReviewAnalyzerService.analyzeReviewsByFoodTruckId(ownerId, foodTruckId);
+            default -> throw new ApiException("Unknown analysis kind " + kind);
+        };
+    }
+
+    private void finish(AiAnalysisJob job, String status, String resultJson, String error) {
+        job.setStatus(status);
+        job.setResultJson(resultJson);
+        job.setError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+        job.setFinishedAt(LocalDateTime.now());
+        aiAnalysisJobRepository.save(job);
+    }
+
+    // renew this instance's jobs first, then fail the ones nobody renewed within the lease
+    @Scheduled(fixedDelayString = "${ai.jobs.heartbeat:PT30S}")
+    public void renewAndExpireLeases() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!heldJobs.isEmpty()) {
+            aiAnalysisJobRepository.renewHeartbeat(List.copyOf(heldJobs), now);
+        }
+        aiAnalysisJobRepository.failExpired(now, now.minus(lease));
+    }
+
+    @Scheduled(cron = "${ai.jobs.purge.cron:0 50 3 * * *}")
+    public void purgeOldJobs() {
+        aiAnalysisJobRepository.deleteFinishedBefore(LocalDateTime.now().minusDays(7));
+    }
+
+    private AiJobDtoOut toDto(AiAnalysisJob job) {
+        JsonNode result = null;
+        if (job.getResultJson() != null) {
+            try {
+                result = objectMapper.readTree(job.getResultJson());
+            } catch (JsonProcessingException e) {
+                throw new ApiException("Failed to read analysis result: " + e.getMessage());
+            }
+        }
+        return new AiJobDtoOut(job.getId(), job.getKind(), job.getStatus(),
+                job.getCreatedAt(), job.getStartedAt(), job.getFinishedAt(), result, job.getError());
+    }
+}
@@ -5,32 +5,41 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.example.trucksy.Api.ApiException;
 import org.example.trucksy.DTOOut.DashBoardAnalyzerDtoOut;
+import org.example.trucksy.DTOOut.RollupTotals;
 import org.example.trucksy.Model.Dashboard;
 import org.example.trucksy.Model.FoodTruck;
-import org.example.trucksy.Model.Order;
 import org.example.trucksy.Repository.DashboardRepository;
 import org.example.trucksy.Repository.FoodTruckRepository;
-import org.example.trucksy.Repository.OrderRepository;
 import org.example.trucksy.Repository.OwnerRepository;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class AiDashboardAnalyzerService {
 
     private final DashboardRepository dashboardRepository;
-    private final OrderRepository orderRepository;
     private final FoodTruckRepository foodTruckRepository;
     private final OwnerRepository ownerRepository;
     private final AiService aiService;
+    private final AiResultCache aiResultCache;
+    private final AiSingleFlight aiSingleFlight;
+    private final PromptBuilder promptBuilder;
+    private final OrderRollupService orderRollupService;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private static final int RECENT_DAYS = 30;
+
     public DashBoardAnalyzerDtoOut analyzeDashboardByOwnerId(Integer ownerId) {
+        // a double click or a second device joins the analysis already running for this owner
+        return aiSingleFlight.run(AiResultCache.DASHBOARD, ownerId, () -> analyzeDashboard(ownerId));
+    }
+
+    private DashBoardAnalyzerDtoOut analyzeDashboard(Integer ownerId) {
         // 1) Verify owner exists and is subscribed
         var owner = ownerRepository.findOwnerById(ownerId);
         if (owner == null) {
@@ -52,54 +61,35 @@ public class AiDashboardAnalyzerService {
             throw new ApiException("No food trucks found for this owner");
         }
 
-        // Get recent orders for deeper analysis - get orders by owner, not client
-        List<Order> recentOrders = orderRepository.findByOwnerIdOrderByOrderDateDesc(ownerId)
-                .stream()
-                .limit(100)
-                .collect(Collectors.toList());
+        // Recent activity from the daily rollups (a few dozen rows) instead of the owner's raw orders
+        RollupTotals recent = orderRollupService.lastDays(ownerId, RECENT_DAYS);
 
-        if (recentOrders.isEmpty()) {
+        if (recent.orders() == 0 && recent.completed() == 0) {
             throw new ApiException("No recent orders found for analysis");
         }
 
         // 4) Build prompt for AI analysis
-        String prompt = buildDashboardAnalysisPrompt(dashboard, foodTrucks, recentOrders);
-
-        // 5) Call AI service
-        String aiResponse = aiService.chat(prompt);
-        if (aiResponse == null || aiResponse.isBlank()) {
-            throw new ApiException("AI returned empty response");
-        }
-
-        // 6) Parse AI response
-        return parseAiResponse(aiResponse);
+        String prompt = buildDashboardAnalysisPrompt(dashboard, foodTrucks, recent, orderRollupService.peakOrdersLabel(ownerId));
+
+        // 5) Call AI service, unless the same inputs were analyzed recently
+        return aiResultCache.getOrCompute(AiResultCache.DASHBOARD, prompt, DashBoardAnalyzerDtoOut.class, () -> {
+            String aiResponse = aiService.chat(prompt);
+            if (aiResponse == null || aiResponse.isBlank()) {
+                throw new ApiException("AI returned empty response");
+            }
+
+            // 6) Parse AI response
+            return parseAiResponse(aiResponse);
+        });
     }
 
-    private String buildDashboardAnalysisPrompt(Dashboard dashboard, List<FoodTruck> foodTrucks, List<Order> recentOrders) {
-        // Calculate additional metrics from orders
-        double totalRevenue = recentOrders.stream()
-                .filter(o -> "COMPLETED".equals(o.getStatus()))
-                .mapToDouble(Order::getTotalPrice)
-                .sum();
-
-        long completedOrders = recentOrders.stream()
-                .filter(o -> "COMPLETED".equals(o.getStatus()))
-                .count();
-
-        long cancelledOrders = recentOrders.stream()
-                .filter(o -> "CANCELLED".equals(o.getStatus()))
-                .count();
-
-        long paidOrders = recentOrders.stream()
-                .filter(o -> "PAID".equals(o.getStatus()) || "READY".equals(o.getStatus()) || "COMPLETED".equals(o.getStatus()))
-                .count();
-
+    private String buildDashboardAnalysisPrompt(Dashboard dashboard, List<FoodTruck> foodTrucks, RollupTotals recent, String peakHours) {
         // Build food truck info
-        StringBuilder trucksInfo = new StringBuilder();
+        List<String> trucksInfo = new ArrayList<>();
         for (int i = 0; i < foodTrucks.size(); i++) {
             FoodTruck truck = foodTrucks.get(i);
-            trucksInfo.append(String.format(
-                    "Truck %d: Name=\"%s\", Category=\"%s\", Status=\"%s\", Location=\"%s, %s\"\n",
+            trucksInfo.add(String.format(
+                    "Truck %d: Name=\"%s\", Category=\"%s\", Status=\"%s\", Location=\"%s, %s\"",
                     i + 1,
                     truck.getName() != null ? truck.getName() : "Unnamed",
                     truck.getCategory() != null ? truck.getCategory() : "Unknown",
@@ -109,7 +99,8 @@ public class AiDashboardAnalyzerService {
             ));
         }
 
-        return String.format("""
+        // the truck list is the only part that grows with the owner, so it gets whatever budget is left
+        return promptBuilder.render(AiResultCache.DASHBOARD, """
         You are a professional food truck business analyst specializing in the Saudi Arabian market, specifically Riyadh city operations.
 
         STRICT OUTPUT FORMAT:
@@ -164,13 +155,14 @@ public class AiDashboardAnalyzerService {
         Total Orders: %d
         Total Completed Orders: %d
         Total Revenue: %.2f SAR
-        Predicted Orders (Current): %s
+        Predicted Orders (Next 24h, local forecast): %s
 
-        RECENT ORDERS ANALYSIS:
+        RECENT ORDERS ANALYSIS (last 30 days):
+        Recent Orders: %d
         Recent Completed Orders: %d
         Recent Cancelled Orders: %d
-        Recent Paid Orders: %d
         Recent Total Revenue: %.2f SAR
+        Peak Hours: %s
 
         FOOD TRUCKS:
         %s
@@ -183,11 +175,12 @@ public class AiDashboardAnalyzerService {
                 dashboard.getTotalCompletedOrders() != null ? dashboard.getTotalCompletedOrders() : 0,
                 dashboard.getTotalRevenue() != null ? dashboard.getTotalRevenue() : 0.0,
                 dashboard.getPredictedOrders() != null ? dashboard.getPredictedOrders().toString() : "Not set",
-                completedOrders,
-                cancelledOrders,
-                paidOrders,
-                totalRevenue,
-                trucksInfo.toString()
+                recent.orders(),
+                recent.completed(),
+                recent.cancelled(),
+                recent.completedRevenue(),
+                peakHours,
+                promptBuilder.lines(trucksInfo, "trucks")
         );
     }
 
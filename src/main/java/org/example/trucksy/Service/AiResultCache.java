@@ -0,0 +1,130 @@
+package org.example.trucksy.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.trucksy.Api.ApiException;
+import org.example.trucksy.Model.AiAnalysisResult;
+import org.example.trucksy.Repository.AiAnalysisResultRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Parsed AI analyses keyed by the sha-256 of their prompt. The prompt is built only from the analysis
+// inputs (metrics, trucks, reviews), so an unchanged fingerprint means the model would be asked the same
+// question again. Results live in memory and in ai_analysis_result, so they survive restarts.
+// ai.cache.requests{kind, result=memory|database|miss} counts hits and misses.
+@Service
+public class AiResultCache {
+
+    public static final String DASHBOARD = "DASHBOARD";
+    public static final String BEST_SPOT = "BEST_SPOT";
+    public static final String REVIEWS = "REVIEWS";
+
+    private final AiAnalysisResultRepository aiAnalysisResultRepository;
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // fingerprint -> result json; a fresh DTO is read per hit so callers never share an instance
+    private final Cache<String, String> memory;
+
+    public AiResultCache(AiAnalysisResultRepository aiAnalysisResultRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${ai.cache.ttl:PT6H}") Duration ttl,
+                         @Value("${ai.cache.max-size:5000}") long maxSize) {
+        this.aiAnalysisResultRepository = aiAnalysisResultRepository;
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public <T> T getOrCompute(String kind, String prompt, Class<T> type, Supplier<T> compute) {
+        String fingerprint = fingerprint(kind, prompt);
+
+        String json = memory.getIfPresent(fingerprint);
+        if (json != null) {
+            record(kind, "memory");
+            return read(json, type);
+        }
+
+        Optional<AiAnalysisResult> stored =
+                aiAnalysisResultRepository.findByFingerprintAndExpiresAtAfter(fingerprint, LocalDateTime.now());
+        if (stored.isPresent()) {
+            record(kind, "database");
+            memory.put(fingerprint, stored.get().getResultJson());
+            return read(stored.get().getResultJson(), type);
+        }
+
+        record(kind, "miss");
+        T result = compute.get();
+        store(kind, fingerprint, write(result));
+        return result;
+    }
+
+    private void store(String kind, String fingerprint, String json) {
+        // an expired row with the same fingerprint is renewed instead of inserting a duplicate
+        AiAnalysisResult row = aiAnalysisResultRepository.findByFingerprint(fingerprint).orElseGet(AiAnalysisResult::new);
+        row.setKind(kind);
+        row.setFingerprint(fingerprint);
+        row.setResultJson(json);
+        row.setExpiresAt(LocalDateTime.now().plus(ttl));
+        try {
+            aiAnalysisResultRepository.save(row);
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent request stored the same analysis first; theirs is just as good
+        }
+        memory.put(fingerprint, json);
+    }
+
+    @Scheduled(cron = "${ai.cache.purge.cron:0 45 3 * * *}")
+    public void purgeExpired() {
+        aiAnalysisResultRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private static String fingerprint(String kind, String prompt) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(kind.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) '\n');
+            return HexFormat.of().formatHex(sha256.digest(prompt.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new ApiException("Failed to read cached AI analysis: " + e.getMessage());
+        }
+    }
+
+    private String write(Object result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new ApiException("Failed to cache AI analysis: " + e.getMessage());
+        }
+    }
+
+    private void record(String kind, String result) {
+        meterRegistry.counter("ai.cache.requests", "kind", kind, "result", result).increment();
+    }
+}
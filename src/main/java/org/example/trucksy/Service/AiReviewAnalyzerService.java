@@ -2,29 +2,65 @@ package org.example.trucksy.Service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
 import org.example.trucksy.Api.ApiException;
 import org.example.trucksy.DTOOut.ReviewAnalyzerDtoOut;
 import org.example.trucksy.Model.FoodTruck;
 import org.example.trucksy.Model.Review;
+import org.example.trucksy.Model.ReviewSummary;
 import org.example.trucksy.Repository.FoodTruckRepository;
 import org.example.trucksy.Repository.OwnerRepository;
 import org.example.trucksy.Repository.ReviewRepository;
+import org.example.trucksy.Repository.ReviewSummaryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
 @Service
-@RequiredArgsConstructor
 public class AiReviewAnalyzerService {
 
+    private static final int MAX_FOLD_ATTEMPTS = 3;
+
     private final ReviewRepository reviewRepository;
+    private final ReviewSummaryRepository reviewSummaryRepository;
     private final FoodTruckRepository foodTruckRepository;
     private final OwnerRepository ownerRepository;
     private final AiService aiService;
+    private final AiResultCache aiResultCache;
+    private final AiSingleFlight aiSingleFlight;
+    private final PromptBuilder promptBuilder;
+    private final int batchSize;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    public AiReviewAnalyzerService(ReviewRepository reviewRepository,
+                                   ReviewSummaryRepository reviewSummaryRepository,
+                                   FoodTruckRepository foodTruckRepository,
+                                   OwnerRepository ownerRepository,
+                                   AiService aiService,
+                                   AiResultCache aiResultCache,
+                                   AiSingleFlight aiSingleFlight,
+                                   PromptBuilder promptBuilder,
+                                   @Value("${ai.reviews.batch-size:100}") int batchSize) {
+        this.reviewRepository = reviewRepository;
+        this.reviewSummaryRepository = reviewSummaryRepository;
+        this.foodTruckRepository = foodTruckRepository;
+        this.ownerRepository = ownerRepository;
+        this.aiService = aiService;
+        this.aiResultCache = aiResultCache;
+        this.aiSingleFlight = aiSingleFlight;
+        this.promptBuilder = promptBuilder;
+        this.batchSize = batchSize;
+    }
+
     public ReviewAnalyzerDtoOut analyzeReviewsByFoodTruckId(Integer ownerId, Integer foodTruckId) {
+        // a double click or a second device joins the analysis already running for this owner
+        return aiSingleFlight.run(AiResultCache.REVIEWS, ownerId + "/" + foodTruckId, () -> analyzeReviews(ownerId, foodTruckId));
+    }
+
+    private ReviewAnalyzerDtoOut analyzeReviews(Integer ownerId, Integer foodTruckId) {
         // 1) Verify owner exists and is subscribed
         var owner = ownerRepository.findOwnerById(ownerId);
         if (owner == null) {
@@ -43,38 +79,85 @@ public class AiReviewAnalyzerService {
             throw new ApiException("Owner does not own this food truck");
         }
 
-        // 3) Get reviews with comments for this food truck
-        List<Review> reviews = reviewRepository.findByFoodTruckIdWithComments(foodTruckId);
-        if (reviews.isEmpty()) {
-            throw new ApiException("No reviews with comments found for this food truck");
+        // 3) Fold the new reviews into the stored summary. Another instance may be folding the same batch: the
+        //    summary's @Version rejects the later save (a new summary collides on its key), and that analysis
+        //    starts over from the summary that won
+        ReviewSummary summary;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                summary = foldNewReviews(foodTruckId, foodTruck.getName());
+                break;
+            } catch (ObjectOptimisticLockingFailureException | DataIntegrityViolationException e) {
+                if (attempt == MAX_FOLD_ATTEMPTS) {
+                    throw new ApiException("Reviews of this food truck are being analyzed by another request, please try again");
+                }
+            }
         }
 
-        // 4) Build prompt for AI analysis
-        String prompt = buildReviewAnalysisPrompt(reviews, foodTruck.getName());
+        return new ReviewAnalyzerDtoOut(
+                summary.getPositiveComments(),
+                summary.getNegativeComments(),
+                summary.getTrueNegativeReviews(),
+                summary.getTruePositiveReviews(),
+                summary.getAdviceBasedOnReviews(),
+                summary.getMostComplaintPoint()
+        );
+    }
 
-        // 5) Call AI service
-        String aiResponse = aiService.chat(prompt);
-        if (aiResponse == null || aiResponse.isBlank()) {
-            throw new ApiException("AI returned empty response");
+    // continues from the stored summary: only reviews newer than its high-water mark go to the model
+    private ReviewSummary foldNewReviews(Integer foodTruckId, String foodTruckName) {
+        ReviewSummary summary = reviewSummaryRepository.findById(foodTruckId).orElse(null);
+        int lastReviewId = summary == null ? 0 : summary.getLastReviewId();
+        List<Review> reviews = reviewRepository.findCommentedAfter(foodTruckId, lastReviewId, PageRequest.of(0, batchSize));
+        if (reviews.isEmpty() && summary == null) {
+            throw new ApiException("No reviews with comments found for this food truck");
         }
 
-        // 6) Parse AI response
-        return parseAiResponse(aiResponse);
+        // batch by batch, saving after each so a failure keeps the progress made
+        while (!reviews.isEmpty()) {
+            String prompt = buildReviewAnalysisPrompt(reviews, summary, foodTruckName);
+            ReviewAnalyzerDtoOut delta = aiResultCache.getOrCompute(AiResultCache.REVIEWS, prompt, ReviewAnalyzerDtoOut.class, () -> {
+                String aiResponse = aiService.chat(prompt);
+                if (aiResponse == null || aiResponse.isBlank()) {
+                    throw new ApiException("AI returned empty response");
+                }
+                return parseAiResponse(aiResponse);
+            });
+
+            summary = reviewSummaryRepository.save(merge(summary, foodTruckId, reviews, delta));
+            if (reviews.size() < batchSize) break;
+            reviews = reviewRepository.findCommentedAfter(foodTruckId, summary.getLastReviewId(), PageRequest.of(0, batchSize));
+        }
+        return summary;
     }
 
-    private String buildReviewAnalysisPrompt(List<Review> reviews, String foodTruckName) {
-        StringBuilder reviewsData = new StringBuilder();
-        for (int i = 0; i < reviews.size(); i++) {
-            Review review = reviews.get(i);
-            reviewsData.append(String.format(
-                    "Review %d: Rating=%d, Comment=\"%s\"\n",
-                    i + 1,
-                    review.getRating(),
-                    sanitizeComment(review.getComment())
-            ));
+    // counts are per batch, so they add up; advice and complaint already cover the whole history
+    private ReviewSummary merge(ReviewSummary summary, Integer foodTruckId, List<Review> reviews, ReviewAnalyzerDtoOut delta) {
+        if (summary == null) {
+            summary = new ReviewSummary(foodTruckId, 0, 0, 0, 0, 0, 0, null, null, null, null);
         }
+        summary.setLastReviewId(reviews.get(reviews.size() - 1).getId());
+        summary.setReviewCount(summary.getReviewCount() + reviews.size());
+        summary.setPositiveComments(summary.getPositiveComments() + delta.getPositiveComments());
+        summary.setNegativeComments(summary.getNegativeComments() + delta.getNegativeComments());
+        summary.setTrueNegativeReviews(summary.getTrueNegativeReviews() + delta.getTrueNegativeReviews());
+        summary.setTruePositiveReviews(summary.getTruePositiveReviews() + delta.getTruePositiveReviews());
+        summary.setAdviceBasedOnReviews(delta.getAdviceBasedOnReviews());
+        summary.setMostComplaintPoint(delta.getMostComplaintPoint());
+        return summary;
+    }
+
+    private String buildReviewAnalysisPrompt(List<Review> reviews, ReviewSummary summary, String foodTruckName) {
+        String previousSummary = summary == null
+                ? "None, these are the first reviews analyzed."
+                : """
+                Reviews already analyzed: %d
+                Advice so far: %s
+                Most complained about so far: %s""".formatted(
+                        summary.getReviewCount(), summary.getAdviceBasedOnReviews(), summary.getMostComplaintPoint());
 
-        return """
+        // histogram + de-duplicated, and if needed rating-stratified, reviews within the token ceiling
+        return promptBuilder.render(AiResultCache.REVIEWS, """
         You are a professional review analyzer for food truck businesses. Analyze the provided reviews and provide insights to help the business improve.
 
         STRICT OUTPUT FORMAT:
@@ -89,30 +172,27 @@ public class AiReviewAnalyzerService {
         }
 
         ANALYSIS RULES:
+        - The four counts cover ONLY the NEW REVIEWS below, not the previous summary
+        - A review line marked (xN) stands for N reviews (repeated comments or a sample of its rating): count it N times, so the counts match the rating histogram
         - "positive_comments": Count comments with positive sentiment (regardless of rating)
         - "negative_comments": Count comments with negative sentiment (regardless of rating)
         - "true_negative_reviews": Count reviews where BOTH rating is low (1-2 stars) AND comment is negative
         - "true_positive_reviews": Count reviews where BOTH rating is high (4-5 stars) AND comment is positive
-        - "advice_based_on_reviews": Provide actionable business advice based on patterns in reviews (max 100 words)
-        - "most_complaint_point": Identify the most frequently mentioned complaint/issue. If no clear pattern, return "No major complaints identified"
+        - "advice_based_on_reviews": Update the previous advice with the new reviews into actionable business advice (max 100 words)
+        - "most_complaint_point": The most frequently mentioned complaint/issue across the previous summary and the new reviews. If no clear pattern, return "No major complaints identified"
 
         FOOD TRUCK: %s
 
-        REVIEWS TO ANALYZE:
+        PREVIOUS SUMMARY:
+        %s
+
+        NEW REVIEWS TO ANALYZE:
         %s
 
         Focus on constructive analysis. Look for patterns in complaints, praise, and suggestions. Consider food quality, service speed, pricing, cleanliness, staff behavior, and location convenience.
 
         Return only the JSON object.
-        """.formatted(foodTruckName, reviewsData.toString());
-    }
-
-    private String sanitizeComment(String comment) {
-        if (comment == null) return "";
-        // Remove potential JSON-breaking characters and limit length
-        return comment.replaceAll("[\"\\\\]", "'")
-                .replaceAll("\\n", " ")
-                .substring(0, Math.min(comment.length(), 200));
+        """, foodTruckName, previousSummary, promptBuilder.reviews(reviews));
     }
 
     private ReviewAnalyzerDtoOut parseAiResponse(String aiResponse) {
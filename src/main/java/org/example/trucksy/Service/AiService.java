@@ -1,21 +1,7 @@
 package org.example.trucksy.Service;
 
-import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.stereotype.Service;
+// chat backend used by the analyzers; selected with ai.backend (openai | local)
+public interface AiService {
 
-@Service
-public class AiService {
-    private final ChatClient chatClient;
-
-    public AiService(ChatClient.Builder Builder) {
-        chatClient = Builder.build();
-    }
-
-    public String chat(String prompt){
-        return chatClient
-                .prompt(prompt)
-                .call()
-                .content();
-    }
+    String chat(String prompt);
 }
-
@@ -0,0 +1,59 @@
+package org.example.trucksy.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.trucksy.Api.ApiException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Coalesces concurrent identical analyses: the first caller for a (kind, subject) runs the work,
+// callers arriving while it is in flight wait for and share its result (or its exception).
+// ai.singleflight{kind, role=leader|joined} counts how often a call was saved.
+@Component
+public class AiSingleFlight {
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public AiSingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T run(String kind, Object subject, Supplier<T> work) {
+        String key = kind + ":" + subject;
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            meterRegistry.counter("ai.singleflight", "kind", kind, "role", "joined").increment();
+            return (T) await(leader);
+        }
+
+        meterRegistry.counter("ai.singleflight", "kind", kind, "role", "leader").increment();
+        try {
+            T result = work.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            // later requests start a new flight (and normally hit AiResultCache)
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ApiException("Analysis failed: " + e.getMessage());
+        }
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -28,9 +29,17 @@ public class BestSpotAnalyzerService {
     private final FoodTruckRepository foodTruckRepository;
     private final OwnerRepository ownerRepository;
     private final AiService aiService;
+    private final AiResultCache aiResultCache;
+    private final AiSingleFlight aiSingleFlight;
+    private final PromptBuilder promptBuilder;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     public BestSpotAnalyzerDtoOut analyzeBestSpotByOwnerId(Integer ownerId) {
+        // a double click or a second device joins the analysis already running for this owner
+        return aiSingleFlight.run(AiResultCache.BEST_SPOT, ownerId, () -> analyzeBestSpot(ownerId));
+    }
+
+    private BestSpotAnalyzerDtoOut analyzeBestSpot(Integer ownerId) {
         // 1) Verify owner exists and is subscribed
         var owner = ownerRepository.findOwnerById(ownerId);
         if (owner == null) {
@@ -65,14 +74,16 @@ public class BestSpotAnalyzerService {
         // 4) Build prompt for AI analysis
         String prompt = buildBestSpotAnalysisPrompt(dashboard, foodTrucks, recentOrders);
 
-        // 5) Call AI service
-        String aiResponse = aiService.chat(prompt);
-        if (aiResponse == null || aiResponse.isBlank()) {
-            throw new ApiException("AI returned empty response");
-        }
+        // 5) Call AI service, unless the same inputs were analyzed recently
+        return aiResultCache.getOrCompute(AiResultCache.BEST_SPOT, prompt, BestSpotAnalyzerDtoOut.class, () -> {
+            String aiResponse = aiService.chat(prompt);
+            if (aiResponse == null || aiResponse.isBlank()) {
+                throw new ApiException("AI returned empty response");
+            }
 
-        // 6) Parse AI response
-        return parseAiResponse(aiResponse);
+            // 6) Parse AI response
+            return parseAiResponse(aiResponse);
+        });
     }
 
     private String buildBestSpotAnalysisPrompt(Dashboard dashboard, List<FoodTruck> foodTrucks, List<Order> recentOrders) {
@@ -89,11 +100,11 @@ public class BestSpotAnalyzerService {
         double avgOrderValue = completedOrders > 0 ? totalRevenue / completedOrders : 0.0;
 
         // Build food truck info
-        StringBuilder trucksInfo = new StringBuilder();
+        List<String> trucksInfo = new ArrayList<>();
         for (int i = 0; i < foodTrucks.size(); i++) {
             FoodTruck truck = foodTrucks.get(i);
-            trucksInfo.append(String.format(
-                    "Truck %d: Name=\"%s\", Category=\"%s\", Status=\"%s\", Current Location=\"%s, %s\"\n",
+            trucksInfo.add(String.format(
+                    "Truck %d: Name=\"%s\", Category=\"%s\", Status=\"%s\", Current Location=\"%s, %s\"",
                     i + 1,
                     truck.getName() != null ? truck.getName() : "Unnamed",
                     truck.getCategory() != null ? truck.getCategory() : "Unknown",
@@ -103,7 +114,8 @@ public class BestSpotAnalyzerService {
             ));
         }
 
-        return String.format("""
+        // the truck list is the only part that grows with the owner, so it gets whatever budget is left
+        return promptBuilder.render(AiResultCache.BEST_SPOT, """
         You are a professional location strategist specializing in food truck placement in Riyadh, Saudi Arabia.
 
         STRICT OUTPUT FORMAT:
@@ -194,7 +206,7 @@ public class BestSpotAnalyzerService {
                 completedOrders,
                 totalRevenue,
                 avgOrderValue,
-                trucksInfo.toString()
+                promptBuilder.lines(trucksInfo, "trucks")
         );
     }
 
@@ -0,0 +1,55 @@
+package org.example.trucksy.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.trucksy.DTOOut.OwnerDashboardDTO;
+import org.example.trucksy.Event.OrderStatusChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+// Assembled OwnerDashboardDTO per owner. Dropped after any order status change for one of the owner's
+// trucks and whenever a dashboard column is rewritten; the TTL only bounds how long a missed write can show.
+// Hit/miss/eviction counts are published as cache.* meters with cache=ownerDashboard.
+@Component
+public class DashboardCache {
+
+    private final Cache<Integer, OwnerDashboardDTO> cache;
+
+    public DashboardCache(MeterRegistry meterRegistry,
+                          @Value("${dashboard.cache.max-size:10000}") long maxSize,
+                          @Value("${dashboard.cache.ttl:PT5M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "ownerDashboard");
+    }
+
+    public OwnerDashboardDTO get(Integer ownerId, Function<Integer, OwnerDashboardDTO> loader) {
+        return cache.get(ownerId, loader);
+    }
+
+    public void invalidate(Integer ownerId) {
+        if (ownerId != null) {
+            cache.invalidate(ownerId);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    // after commit, so a reader cannot re-cache the pre-change row; CANCELLED is published outside a transaction
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        invalidate(event.ownerId());
+    }
+}
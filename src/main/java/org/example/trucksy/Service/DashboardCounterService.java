@@ -0,0 +1,40 @@
+package org.example.trucksy.Service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.trucksy.Event.OrderStatusChangedEvent;
+import org.example.trucksy.Repository.DashboardRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Keeps Dashboard.totalOrders / totalCompletedOrders / totalRevenue current without re-aggregating orders.
+// Same semantics as the aggregates: every order counts towards totals and revenue, COMPLETED ones towards completed.
+@Service
+@RequiredArgsConstructor
+public class DashboardCounterService {
+
+    private final DashboardRepository dashboardRepository;
+    private final DashboardCache dashboardCache;
+
+    // BEFORE_COMMIT: the counter update commits (or rolls back) together with the order change
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.ownerId() == null) {
+            return;
+        }
+        if (event.previousStatus() == null && "PLACED".equals(event.status())) {
+            dashboardRepository.incrementOrders(event.ownerId(), event.totalPrice() != null ? event.totalPrice() : 0.0);
+        } else if ("COMPLETED".equals(event.status())) {
+            dashboardRepository.incrementCompletedOrders(event.ownerId());
+        }
+    }
+
+    // repairs any drift (manual data fixes, deleted orders, events lost to a crash) in one statement;
+    // peakOrders and updateDate are maintained by DashboardPrecomputeService
+    @Scheduled(cron = "${dashboard.reconcile.cron:0 0 3 * * *}")
+    public void reconcile() {
+        dashboardRepository.recomputeAllCounters();
+        dashboardCache.invalidateAll();
+    }
+}
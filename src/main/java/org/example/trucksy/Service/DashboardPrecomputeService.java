@@ -0,0 +1,90 @@
+package org.example.trucksy.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.trucksy.Repository.DashboardRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Recomputes every owner's dashboard ahead of time so GET /dashboard is a primary-key read.
+// Owners are walked in batches; within a batch each owner runs on a virtual thread of
+// dashboardPrecomputeExecutor, whose concurrency limit bounds the load on the database. The scheduler thread
+// only starts a run on scheduledJobExecutor; a run still going when the next one is due is not overlapped.
+@Service
+public class DashboardPrecomputeService {
+
+    private final DashboardRepository dashboardRepository;
+    private final DashboardService dashboardService;
+    private final TaskExecutor dashboardPrecomputeExecutor;
+    private final TaskExecutor scheduledJobExecutor;
+    private final MeterRegistry meterRegistry;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${dashboard.precompute.batch-size:200}")
+    private int batchSize;
+
+    public DashboardPrecomputeService(DashboardRepository dashboardRepository,
+                                      DashboardService dashboardService,
+                                      @Qualifier("dashboardPrecomputeExecutor") TaskExecutor dashboardPrecomputeExecutor,
+                                      @Qualifier("scheduledJobExecutor") TaskExecutor scheduledJobExecutor,
+                                      MeterRegistry meterRegistry) {
+        this.dashboardRepository = dashboardRepository;
+        this.dashboardService = dashboardService;
+        this.dashboardPrecomputeExecutor = dashboardPrecomputeExecutor;
+        this.scheduledJobExecutor = scheduledJobExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.precompute.interval:PT15M}",
+            initialDelayString = "${dashboard.precompute.initial-delay:PT1M}")
+    public void precomputeAll() {
+        if (!running.compareAndSet(false, true)) {
+            return; // the previous run is still going
+        }
+        try {
+            scheduledJobExecutor.execute(() -> {
+                try {
+                    precomputeOwners();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    // joins batch by batch on its own virtual thread, never on the scheduler's
+    private void precomputeOwners() {
+        long begin = System.nanoTime();
+        AtomicInteger failed = new AtomicInteger();
+
+        List<Integer> ownerIds = dashboardRepository.findAllIds();
+        for (int from = 0; from < ownerIds.size(); from += batchSize) {
+            List<CompletableFuture<Void>> batch = new ArrayList<>();
+            for (Integer ownerId : ownerIds.subList(from, Math.min(from + batchSize, ownerIds.size()))) {
+                batch.add(CompletableFuture.runAsync(() -> dashboardService.refreshDashboard(ownerId), dashboardPrecomputeExecutor)
+                        .exceptionally(e -> {
+                            // one broken dashboard must not stop the others; it is retried on the next run
+                            failed.incrementAndGet();
+                            return null;
+                        }));
+            }
+            CompletableFuture.allOf(batch.toArray(new CompletableFuture[0])).join();
+        }
+
+        meterRegistry.timer("dashboard.precompute").record(Duration.ofNanos(System.nanoTime() - begin));
+        meterRegistry.counter("dashboard.precompute.owners", "outcome", "refreshed").increment(ownerIds.size() - failed.get());
+        meterRegistry.counter("dashboard.precompute.owners", "outcome", "failed").increment(failed.get());
+    }
+}
@@ -3,69 +3,72 @@ package org.example.trucksy.Service;
 import lombok.RequiredArgsConstructor;
 import org.example.trucksy.Api.ApiException;
 import org.example.trucksy.DTOOut.*;
-import org.example.trucksy.Model.Dashboard;
+import org.example.trucksy.Model.FoodTruck;
 import org.example.trucksy.Model.Order;
 import org.example.trucksy.Model.Owner;
 import org.example.trucksy.Repository.DashboardRepository;
+import org.example.trucksy.Repository.FoodTruckRepository;
 import org.example.trucksy.Repository.OrderRepository;
 import org.example.trucksy.Repository.OwnerRepository;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class DashboardService {
 
-    // Add the new BestSpotAnalyzerService dependency
-    private final BestSpotAnalyzerService bestSpotAnalyzerService;
-    private final AiDashboardAnalyzerService aiDashboardAnalyzerService;
     private final DashboardRepository dashboardRepository;
     private final OrderRepository orderRepository;
-    private final AiReviewAnalyzerService aiReviewAnalyzerService;
     private final OwnerRepository ownerRepository;
+    private final FoodTruckRepository foodTruckRepository;
+    private final OrderRollupService orderRollupService;
+    private final DashboardCache dashboardCache;
 
-    // Existing methods remain the same...
-    public void refreshDashboard(Integer owner_id) {
-        Dashboard dash = dashboardRepository.findDashboardById(owner_id);
-        Integer total = orderRepository.countOrdersByOwner(owner_id);
-        Integer totalCompletedOrder = orderRepository.countCompletedOrdersByOwner(owner_id);
-        Double revenue = orderRepository.sumRevenueByOwner(owner_id);
-//        String peak = computePeakHourLabel(ownerUserId);
-//        String topItems = computeTopItems(ownerUserId);
-
-        dash.setTotalOrders((int) total);
-        dash.setTotalRevenue(revenue != null ? revenue : 0.0);
-        dash.setTotalCompletedOrders((int) totalCompletedOrder);
-//        dash.setPredictedOrders(predict(total));
-//        dash.setPeakOrders(peak);
-//        dash.setTopSellingItems(topItems);
-
-        dashboardRepository.save(dash);
-    }
+    @Value("${dashboard.max-staleness:PT30M}")
+    private Duration maxStaleness;
 
-    public OwnerDashboardDTO getOwnerDashboard(Integer ownerId) {
-        Dashboard dash = dashboardRepository.findDashboardById(ownerId);
-        if (dash == null) {
+    // counters are maintained incrementally by DashboardCounterService; this forces an exact recompute.
+    // updateDate records when it started, so the row is at least as fresh as that instant
+    public void refreshDashboard(Integer owner_id) {
+        if (dashboardRepository.recomputeCounters(owner_id, LocalDateTime.now()) == 0) {
             throw new ApiException("Dashboard not found");
         }
+        dashboardRepository.setPeakOrders(owner_id, orderRollupService.peakOrdersLabel(owner_id));
+        dashboardCache.invalidate(owner_id);
+    }
 
-        //this from method refresh
-        refreshDashboard(ownerId);
+    public OwnerOrderStats getOrderStats(Integer ownerId) {
+        if (ownerRepository.findOwnerById(ownerId) == null) {
+            throw new ApiException("Owner not found");
+        }
+        return orderRepository.findOrderStatsByOwner(ownerId);
+    }
 
-        Owner owner = dash.getOwner();
+    // served from DashboardCache / the row kept fresh by DashboardPrecomputeService; recomputed inline only when
+    // the last recompute is older than dashboard.max-staleness (e.g. an owner created since the last run)
+    public OwnerDashboardDTO getOwnerDashboard(Integer ownerId) {
+        OwnerDashboardDTO dashboard = dashboardCache.get(ownerId, this::loadOwnerDashboard);
+        if (dashboard.getUpdateDate() == null
+                || dashboard.getUpdateDate().isBefore(LocalDateTime.now().minus(maxStaleness))) {
+            refreshDashboard(ownerId);
+            dashboard = dashboardCache.get(ownerId, this::loadOwnerDashboard);
+        }
+        return dashboard;
+    }
 
-        return new OwnerDashboardDTO(
-                owner.getUser().getUsername(),
-                dash.getTotalOrders(),
-                dash.getTotalRevenue(),
-                dash.getTotalCompletedOrders(),
-                dash.getPredictedOrders(),
-                dash.getPeakOrders(),
-                dash.getTopSellingItems(),
-                dash.getUpdateDate()
-        );
+    private OwnerDashboardDTO loadOwnerDashboard(Integer ownerId) {
+        OwnerDashboardDTO dashboard = dashboardRepository.findOwnerDashboardById(ownerId);
+        if (dashboard == null) {
+            throw new ApiException("Dashboard not found");
+        }
+        return dashboard;
     }
 
     public List<OrderDashboardDTOOut> getOrdersByFoodTruck(Integer foodTruckId) {
@@ -81,77 +84,50 @@ public class DashboardService {
                 )).toList();
     }
 
-    public ResponseEntity<ReviewAnalyzerDtoOut> reviewAnalyzer(Integer ownerId, Integer foodTruckId) {
-        try {
-            ReviewAnalyzerDtoOut analysis = aiReviewAnalyzerService.analyzeReviewsByFoodTruckId(ownerId, foodTruckId);
-            return ResponseEntity.ok(analysis);
-        } catch (ApiException e) {
-            throw e; // Re-throw API exceptions as-is
-        } catch (Exception e) {
-            throw new ApiException("Failed to analyze reviews: " + e.getMessage());
-        }
+    public OrderQueueDtoOut getPLACEDOrdersByOwner(Integer ownerId, Integer foodTruckId, Integer page, Integer size) {
+        return getOrderQueue(ownerId, foodTruckId, "PLACED", page, size);
     }
 
-    // Updated method to use the new AiDashboardAnalyzerService
-    public ResponseEntity<DashBoardAnalyzerDtoOut> analyzeDashboard(Integer userId) {
-        DashBoardAnalyzerDtoOut result = aiDashboardAnalyzerService.analyzeDashboardByOwnerId(userId);
-        return ResponseEntity.ok(result);
+    public OrderQueueDtoOut getReadyOrdersByOwner(Integer ownerId, Integer foodTruckId, Integer page, Integer size) {
+        return getOrderQueue(ownerId, foodTruckId, "READY", page, size);
     }
 
-    // New method for best spot analysis
-    public ResponseEntity<BestSpotAnalyzerDtoOut> analyzeBestSpot(Integer userId) {
-        BestSpotAnalyzerDtoOut result = bestSpotAnalyzerService.analyzeBestSpotByOwnerId(userId);
-        return ResponseEntity.ok(result);
+    public OrderQueueDtoOut getCompletedOrdersByOwner(Integer ownerId, Integer foodTruckId, Integer page, Integer size) {
+        return getOrderQueue(ownerId, foodTruckId, "COMPLETED", page, size);
     }
 
-    public List<OrderDashboardDTOOut> getPLACEDOrdersByOwner(Integer ownerId) {
+    // only this owner's (or one of their trucks') orders in the given status, one page at a time
+    private OrderQueueDtoOut getOrderQueue(Integer ownerId, Integer foodTruckId, String status, Integer page, Integer size) {
         Owner owner = ownerRepository.findOwnerById(ownerId);
         if (owner == null) {
             throw new ApiException("Owner not found");
         }
-        List<Order> placedOrders = orderRepository.findAllByStatus("PLACED");
-
-        return placedOrders.stream()
-                .map(o-> new OrderDashboardDTOOut(
-                        o.getId(),
-                        o.getOrderDate(),
-                        o.getClient().getUser().getUsername(),
-                        o.getTotalPrice(),
-                        o.getStatus()
-                )).toList();
-    }
-
-    public List<OrderDashboardDTOOut> getReadyOrdersByOwner(Integer ownerId) {
-        Owner owner = ownerRepository.findOwnerById(ownerId);
-        if (owner == null) {
-            throw new ApiException("Owner not found");
+        if (page == null || page < 0) {
+            throw new ApiException("page must be 0 or more");
+        }
+        if (size == null || size < 1 || size > 100) {
+            throw new ApiException("size must be between 1 and 100");
         }
-        List<Order> readyOrders = orderRepository.findAllByStatus("READY");
-
-        return readyOrders.stream()
-                .map(o-> new OrderDashboardDTOOut(
-                        o.getId(),
-                        o.getOrderDate(),
-                        o.getClient().getUser().getUsername(),
-                        o.getTotalPrice(),
-                        o.getStatus()
-                )).toList();
-    }
 
-    public List<OrderDashboardDTOOut> getCompletedOrdersByOwner(Integer ownerId) {
-        Owner owner = ownerRepository.findOwnerById(ownerId);
-        if (owner == null) {
-            throw new ApiException("Owner not found");
+        Pageable pageable = PageRequest.of(page, size);
+        Page<OrderDashboardDTOOut> queue;
+        if (foodTruckId == null) {
+            queue = orderRepository.findStatusQueueByOwner(ownerId, status, pageable);
+        } else {
+            FoodTruck foodTruck = foodTruckRepository.findFoodTruckById(foodTruckId);
+            if (foodTruck == null || foodTruck.getOwner() == null || !foodTruck.getOwner().getId().equals(ownerId)) {
+                throw new ApiException("Owner does not own this FoodTruck");
+            }
+            queue = orderRepository.findStatusQueueByFoodTruck(foodTruckId, status, pageable);
         }
-        List<Order> completedOrders = orderRepository.findAllByStatus("COMPLETED");
-
-        return completedOrders.stream()
-                .map(o-> new OrderDashboardDTOOut(
-                        o.getId(),
-                        o.getOrderDate(),
-                        o.getClient().getUser().getUsername(),
-                        o.getTotalPrice(),
-                        o.getStatus()
-                )).toList();
+
+        return new OrderQueueDtoOut(
+                status,
+                queue.getContent(),
+                queue.getNumber(),
+                queue.getSize(),
+                queue.getTotalElements(),
+                queue.getTotalPages()
+        );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,125 @@
+package org.example.trucksy.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.trucksy.Analytics.ForecastBatch;
+import org.example.trucksy.DTOOut.HourlyCountRow;
+import org.example.trucksy.DTOOut.TruckOwnerRow;
+import org.example.trucksy.Repository.DashboardRepository;
+import org.example.trucksy.Repository.FoodTruckRepository;
+import org.example.trucksy.Repository.OrderRollupRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Dashboard.predictedOrders: orders expected over the next 24 hours, summed over the owner's trucks.
+// Each truck gets its own double seasonal model fitted on its HOUR rollups; the whole fleet is refit
+// in one scheduled batch on a dedicated fork/join pool, started off the scheduler thread on scheduledJobExecutor.
+@Service
+public class DemandForecastService {
+
+    private static final int HORIZON_HOURS = 24;
+
+    private final OrderRollupRepository orderRollupRepository;
+    private final FoodTruckRepository foodTruckRepository;
+    private final DashboardRepository dashboardRepository;
+    private final DashboardCache dashboardCache;
+    private final MeterRegistry meterRegistry;
+    private final ForkJoinPool forecastPool;
+    private final TaskExecutor scheduledJobExecutor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${forecast.history-weeks:8}")
+    private int historyWeeks;
+
+    public DemandForecastService(OrderRollupRepository orderRollupRepository,
+                                 FoodTruckRepository foodTruckRepository,
+                                 DashboardRepository dashboardRepository,
+                                 DashboardCache dashboardCache,
+                                 MeterRegistry meterRegistry,
+                                 @Qualifier("scheduledJobExecutor") TaskExecutor scheduledJobExecutor,
+                                 @Value("${forecast.parallelism:0}") int parallelism) {
+        this.orderRollupRepository = orderRollupRepository;
+        this.foodTruckRepository = foodTruckRepository;
+        this.dashboardRepository = dashboardRepository;
+        this.dashboardCache = dashboardCache;
+        this.meterRegistry = meterRegistry;
+        this.scheduledJobExecutor = scheduledJobExecutor;
+        this.forecastPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        forecastPool.shutdown();
+    }
+
+    @Scheduled(cron = "${forecast.refit.cron:0 5 * * * *}")
+    public void refitAll() {
+        if (!running.compareAndSet(false, true)) {
+            return; // the previous refit is still running
+        }
+        try {
+            scheduledJobExecutor.execute(() -> {
+                try {
+                    refitTrucks();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    // blocks in forecastPool.invoke, so it runs on its own virtual thread
+    private void refitTrucks() {
+        long begin = System.nanoTime();
+
+        // the series starts on a Monday 00:00 so that index % 168 is the hour of week, and stops at the last full hour
+        LocalDateTime until = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime since = until.minusWeeks(historyWeeks)
+                .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                .truncatedTo(ChronoUnit.DAYS);
+        int length = (int) Duration.between(since, until).toHours();
+
+        Map<Integer, Integer> ownerByTruck = new HashMap<>();
+        Map<Integer, double[]> seriesByTruck = new HashMap<>();
+        for (TruckOwnerRow row : foodTruckRepository.findAllTruckOwners()) {
+            ownerByTruck.put(row.foodTruckId(), row.ownerId());
+            seriesByTruck.put(row.foodTruckId(), new double[length]);
+        }
+        for (HourlyCountRow row : orderRollupRepository.findHourlyBetween(since, until)) {
+            double[] series = seriesByTruck.get(row.foodTruckId());
+            if (series != null && row.orderCount() != null) {
+                series[(int) Duration.between(since, row.bucketStart()).toHours()] = row.orderCount();
+            }
+        }
+
+        Map<Integer, Double> forecastByTruck = ForecastBatch.refit(seriesByTruck, HORIZON_HOURS, forecastPool);
+
+        Map<Integer, Double> forecastByOwner = new HashMap<>();
+        forecastByTruck.forEach((truckId, total) -> {
+            Integer ownerId = ownerByTruck.get(truckId);
+            if (ownerId != null) forecastByOwner.merge(ownerId, total, Double::sum);
+        });
+        forecastByOwner.forEach((ownerId, total) -> {
+            dashboardRepository.setPredictedOrders(ownerId, (int) Math.round(total));
+            dashboardCache.invalidate(ownerId);
+        });
+
+        meterRegistry.timer("forecast.refit").record(Duration.ofNanos(System.nanoTime() - begin));
+    }
+}
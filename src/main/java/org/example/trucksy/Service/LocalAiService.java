@@ -0,0 +1,99 @@
+package org.example.trucksy.Service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Offline backend for load tests and local runs (ai.backend=local): answers each analyzer prompt
+// with valid JSON templated from the prompt itself, after a configurable latency. Same prompt, same answer.
+@Service
+@ConditionalOnProperty(name = "ai.backend", havingValue = "local")
+public class LocalAiService implements AiService {
+
+    private static final Pattern RATING = Pattern.compile("(?:\\(x(\\d+)\\): )?Rating=(\\d)");
+    private static final Pattern TOTAL_ORDERS = Pattern.compile("Total Orders: (\\d+)");
+    private static final Pattern COMPLETED_ORDERS = Pattern.compile("Total Completed Orders: (\\d+)");
+    private static final Pattern TOTAL_REVENUE = Pattern.compile("Total Revenue: ([\\d.]+) SAR");
+
+    private final Duration latency;
+
+    public LocalAiService(@Value("${ai.local.latency:PT0.2S}") Duration latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public String chat(String prompt) {
+        if (!latency.isZero()) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (prompt.contains("\"positive_comments\"")) return reviews(prompt);
+        if (prompt.contains("\"primarySpot\"")) return bestSpot();
+        if (prompt.contains("\"adviceBasedOnTheDashboard\"")) return dashboard(prompt);
+        return "{}";
+    }
+
+    private String reviews(String prompt) {
+        int positive = 0, negative = 0;
+        Matcher m = RATING.matcher(prompt);
+        while (m.find()) {
+            int weight = m.group(1) == null ? 1 : Integer.parseInt(m.group(1));
+            int rating = Integer.parseInt(m.group(2));
+            if (rating >= 4) positive += weight;
+            else if (rating <= 2) negative += weight;
+        }
+        return """
+                {"positive_comments": %d, "negative_comments": %d, "true_negative_reviews": %d, "true_positive_reviews": %d,
+                 "advice_based_on_reviews": "Local stub: keep an eye on the low-rated reviews.",
+                 "most_complaint_point": "No major complaints identified"}
+                """.formatted(positive, negative, negative, positive);
+    }
+
+    private String bestSpot() {
+        return String.format(Locale.ROOT, """
+                {"primarySpot": "King Fahd District", "secondarySpot": "Olaya District", "thirdSpot": "Tahlia Street",
+                 "spotAnalysisReason": "Local stub answer.", "timeRecommendations": "12 PM - 2 PM, 6 PM - 10 PM",
+                 "seasonalAdvice": "Covered spots in summer.", "competitionAnalysis": "Moderate.",
+                 "footTrafficScore": 7.50, "accessibilityScore": 7.00, "parkingAvailabilityScore": 6.00,
+                 "proximityToOfficesScore": 8.00, "proximityToUniversitiesScore": 5.00, "proximityToMallsScore": 6.50,
+                 "overallLocationScore": 7.00, "confidence": 50.00, "riyadhOnly": true, "analysisDate": "%s"}
+                """, LocalDate.now());
+    }
+
+    private String dashboard(String prompt) {
+        long total = find(TOTAL_ORDERS, prompt);
+        long completed = find(COMPLETED_ORDERS, prompt);
+        double revenue = findDouble(TOTAL_REVENUE, prompt);
+        double conversion = total == 0 ? 0 : Math.min(100.0, completed * 100.0 / total);
+        // Locale.ROOT: the decimal separator must be a dot whatever the server locale
+        return String.format(Locale.ROOT, """
+                {"adviceBasedOnTheDashboard": "Local stub answer.", "adviceOnItemDescription": "Local stub answer.",
+                 "totalOrders": %d, "totalCompletedOrders": %d, "predictedOrders": %d, "totalRevenue": %.2f,
+                 "avgOrderValue": %.2f, "grossMarginPct": 50.00, "repeatCustomerRate": 30.00, "conversionRate": %.2f,
+                 "cancelRate": 0.00, "avgPrepTimeSec": 300, "queueLenAvg": 1.00, "tipsTotal": 0.00,
+                 "weatherImpactIndex": 5.00, "eventImpactIndex": 5.00, "confidence": 50.00, "riyadhOnly": true,
+                 "analysisPeriodFrom": "%s", "analysisPeriodTo": "%s"}
+                """, total, completed, total / 30, revenue, total == 0 ? 0.0 : revenue / total, conversion,
+                LocalDate.now().minusDays(30), LocalDate.now());
+    }
+
+    private static long find(Pattern pattern, String prompt) {
+        Matcher m = pattern.matcher(prompt);
+        return m.find() ? Long.parseLong(m.group(1)) : 0;
+    }
+
+    private static double findDouble(Pattern pattern, String prompt) {
+        Matcher m = pattern.matcher(prompt);
+        return m.find() ? Double.parseDouble(m.group(1)) : 0;
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.trucksy.Service;
+
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+@Service
+@ConditionalOnProperty(name = "ai.backend", havingValue = "openai", matchIfMissing = true)
+public class OpenAiService implements AiService {
+    private final ChatClient chatClient;
+
+    public OpenAiService(ChatClient.Builder Builder) {
+        chatClient = Builder.build();
+    }
+
+    @Override
+    public String chat(String prompt){
+        return chatClient
+                .prompt(prompt)
+                .call()
+                .content();
+    }
+}
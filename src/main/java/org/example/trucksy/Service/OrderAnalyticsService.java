@@ -0,0 +1,163 @@
+package org.example.trucksy.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.trucksy.Analytics.OrderFactStore;
+import org.example.trucksy.Api.ApiException;
+import org.example.trucksy.Api.WarmingUpException;
+import org.example.trucksy.DTOOut.OrderFactRow;
+import org.example.trucksy.DTOOut.OwnerAnalyticsDtoOut;
+import org.example.trucksy.Event.OrderStatusChangedEvent;
+import org.example.trucksy.Repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Owner analytics (revenue per truck, status mix, daily trend) served from OrderFactStore.
+// The store is rebuilt from the database after startup and then every analytics.reload-interval, so orders placed
+// or changed through other instances show up within one interval; this instance's own order events are applied
+// immediately. Until the first load has finished the analytics answer 503 instead of empty numbers.
+@Service
+public class OrderAnalyticsService {
+
+    private static final int MAX_DAYS = 366;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private final OrderRepository orderRepository;
+    private final TaskExecutor scheduledJobExecutor;
+    private final MeterRegistry meterRegistry;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // null until the first load has finished; replaced as a whole by each reload
+    private volatile OrderFactStore orderFactStore;
+    // the store a reload is filling, so events arriving meanwhile reach it too; guarded by this
+    private OrderFactStore loading;
+
+    public OrderAnalyticsService(OrderRepository orderRepository,
+                                 @Qualifier("scheduledJobExecutor") TaskExecutor scheduledJobExecutor,
+                                 MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.scheduledJobExecutor = scheduledJobExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // off the startup thread: the application is serving (with 503s here) while the facts load
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.reload-interval:PT5M}",
+            initialDelayString = "${analytics.reload-interval:PT5M}")
+    public void reload() {
+        if (!running.compareAndSet(false, true)) {
+            return; // the previous load is still going
+        }
+        try {
+            scheduledJobExecutor.execute(() -> {
+                try {
+                    rebuild();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    // a full snapshot rather than an incremental one: orders have no update time, and status changes made through
+    // other instances must be picked up as well as new orders
+    private void rebuild() {
+        long begin = System.nanoTime();
+        OrderFactStore current = orderFactStore;
+        OrderFactStore next = new OrderFactStore(current != null ? current.size() + (current.size() >> 3) : INITIAL_CAPACITY);
+        synchronized (this) {
+            loading = next;
+        }
+        try {
+            for (OrderFactRow row : orderRepository.findAllOrderFacts()) {
+                next.insertIfAbsent(
+                        row.orderId(),
+                        row.ownerId() != null ? row.ownerId() : 0,
+                        row.foodTruckId(),
+                        row.orderDate() != null ? (int) row.orderDate().toEpochDay() : 0,
+                        OrderFactStore.toHalalas(row.totalPrice()),
+                        OrderFactStore.statusCode(row.status()));
+            }
+            synchronized (this) {
+                orderFactStore = next;
+            }
+        } finally {
+            synchronized (this) {
+                loading = null;
+            }
+        }
+        meterRegistry.timer("analytics.reload").record(Duration.ofNanos(System.nanoTime() - begin));
+    }
+
+    // fallbackExecution: CANCELLED is published outside a transaction
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.ownerId() == null || event.foodTruckId() == null) {
+            return;
+        }
+        // the day only matters for a new order; known orders just take the new status
+        LocalDate orderDate = event.orderedAt() != null ? event.orderedAt().toLocalDate() : LocalDate.now();
+        int epochDay = (int) orderDate.toEpochDay();
+        long amount = OrderFactStore.toHalalas(event.totalPrice());
+        byte status = OrderFactStore.statusCode(event.status());
+        // under the lock so a reload swapping stores in between cannot drop the event; the upserts are map operations
+        synchronized (this) {
+            if (orderFactStore != null) {
+                orderFactStore.upsert(event.orderId(), event.ownerId(), event.foodTruckId(), epochDay, amount, status);
+            }
+            // the snapshot being read may predate this event; insertIfAbsent keeps it over the snapshot's row
+            if (loading != null) {
+                loading.upsert(event.orderId(), event.ownerId(), event.foodTruckId(), epochDay, amount, status);
+            }
+        }
+    }
+
+    public OwnerAnalyticsDtoOut getOwnerAnalytics(Integer ownerId, Integer days) {
+        if (days == null || days < 1 || days > MAX_DAYS) {
+            throw new ApiException("days must be between 1 and " + MAX_DAYS);
+        }
+        OrderFactStore store = orderFactStore;
+        if (store == null) {
+            throw new WarmingUpException("Analytics are still loading, please try again in a few seconds");
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(days - 1);
+        OrderFactStore.OwnerAggregate aggregate =
+                store.aggregate(ownerId, (int) from.toEpochDay(), (int) today.toEpochDay());
+
+        Map<Integer, Double> revenueByFoodTruck = new LinkedHashMap<>();
+        aggregate.revenueByTruck().forEach((truckId, halalas) -> revenueByFoodTruck.put(truckId, halalas / 100.0));
+
+        Map<String, Long> statusMix = new LinkedHashMap<>();
+        for (int i = 0; i < OrderFactStore.STATUSES.length; i++) {
+            statusMix.put(OrderFactStore.STATUSES[i], aggregate.statusCounts()[i]);
+        }
+
+        List<OwnerAnalyticsDtoOut.DailyPoint> dailyTrend = new ArrayList<>();
+        for (int d = 0; d < days; d++) {
+            dailyTrend.add(new OwnerAnalyticsDtoOut.DailyPoint(
+                    from.plusDays(d), aggregate.dailyOrders()[d], aggregate.dailyRevenue()[d] / 100.0));
+        }
+        return new OwnerAnalyticsDtoOut(revenueByFoodTruck, statusMix, dailyTrend);
+    }
+}
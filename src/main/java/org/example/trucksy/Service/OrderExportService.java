@@ -0,0 +1,136 @@
+package org.example.trucksy.Service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.RequiredArgsConstructor;
+import org.example.trucksy.Api.ApiException;
+import org.example.trucksy.DTOOut.OrderExportRow;
+import org.example.trucksy.Repository.OrderRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Owner order history as CSV or JSON lines, written row by row from a forward-only cursor:
+// nothing is collected, so memory stays flat whatever the number of orders.
+@Service
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    public static final String CSV = "csv";
+    public static final String JSONL = "jsonl";
+
+    private static final String CSV_HEADER =
+            "order_id,order_date,ordered_at,food_truck_id,food_truck_name,client_name,status,payment_status,total_price";
+    private static final int FLUSH_EVERY = 1000;
+
+    private final OrderRepository orderRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public static void checkFormat(String format) {
+        if (!CSV.equals(format) && !JSONL.equals(format)) {
+            throw new ApiException("format must be csv or jsonl");
+        }
+    }
+
+    // the cursor only lives inside a transaction; this runs on the async thread of StreamingResponseBody
+    public long exportOwnerOrders(Integer ownerId, String format, OutputStream out) {
+        checkFormat(format);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Long written = readOnly.execute(status -> {
+            try (Stream<OrderExportRow> rows = orderRepository.streamExportRowsByOwner(ownerId)) {
+                return write(rows, format, out);
+            }
+        });
+        return written == null ? 0 : written;
+    }
+
+    public long write(Stream<OrderExportRow> rows, String format, OutputStream out) {
+        checkFormat(format);
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            long count = CSV.equals(format) ? writeCsv(rows, writer) : writeJsonLines(rows, writer);
+            writer.flush();
+            return count;
+        } catch (IOException e) {
+            // typically the client went away; the transaction is rolled back and the cursor closed
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long writeCsv(Stream<OrderExportRow> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long count = 0;
+        for (Iterator<OrderExportRow> it = rows.iterator(); it.hasNext(); ) {
+            OrderExportRow row = it.next();
+            writer.write(String.valueOf(row.orderId()));
+            writer.write(',');
+            writer.write(csv(row.orderDate()));
+            writer.write(',');
+            writer.write(csv(row.orderedAt()));
+            writer.write(',');
+            writer.write(csv(row.foodTruckId()));
+            writer.write(',');
+            writer.write(csv(row.foodTruckName()));
+            writer.write(',');
+            writer.write(csv(row.clientName()));
+            writer.write(',');
+            writer.write(csv(row.status()));
+            writer.write(',');
+            writer.write(csv(row.paymentStatus()));
+            writer.write(',');
+            writer.write(csv(row.totalPrice()));
+            writer.write('\n');
+            if (++count % FLUSH_EVERY == 0) writer.flush();
+        }
+        return count;
+    }
+
+    private long writeJsonLines(Stream<OrderExportRow> rows, Writer writer) throws IOException {
+        JsonGenerator json = jsonFactory.createGenerator(writer);
+        json.setRootValueSeparator(null);
+        long count = 0;
+        for (Iterator<OrderExportRow> it = rows.iterator(); it.hasNext(); ) {
+            OrderExportRow row = it.next();
+            json.writeStartObject();
+            json.writeNumberField("orderId", row.orderId());
+            json.writeStringField("orderDate", row.orderDate() == null ? null : row.orderDate().toString());
+            json.writeStringField("orderedAt", row.orderedAt() == null ? null : row.orderedAt().toString());
+            if (row.foodTruckId() == null) json.writeNullField("foodTruckId");
+            else json.writeNumberField("foodTruckId", row.foodTruckId());
+            json.writeStringField("foodTruckName", row.foodTruckName());
+            json.writeStringField("clientName", row.clientName());
+            json.writeStringField("status", row.status());
+            json.writeStringField("paymentStatus", row.paymentStatus());
+            if (row.totalPrice() == null) json.writeNullField("totalPrice");
+            else json.writeNumberField("totalPrice", row.totalPrice());
+            json.writeEndObject();
+            json.writeRaw('\n');
+            if (++count % FLUSH_EVERY == 0) json.flush();
+        }
+        json.flush();
+        return count;
+    }
+
+    // RFC 4180: quote when the value contains a separator, quote or line break
+    private static String csv(Object value) {
+        if (value == null) return "";
+        String s = value.toString();
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+            return s;
+        }
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.trucksy.Service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.trucksy.Api.ApiException;
+import org.example.trucksy.Model.Client;
+import org.example.trucksy.Model.Order;
+import org.example.trucksy.Model.OrderLine;
+import org.example.trucksy.Repository.OrderRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class OrderInvoiceService {
+
+    private final OrderRepository orderRepository;
+    private final PdfService pdfService;
+    private final PdfMailService pdfMailService;
+
+    // delivered from the outbox (ORDER_INVOICE), after the paid order is committed
+    @Transactional(readOnly = true)
+    public void sendOrderInvoice(Integer orderId, String paymentId, String message) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new ApiException("Error, the order does not exist"));
+
+        Client client = order.getClient();
+        String customerName = (client != null && client.getUser() != null && client.getUser().getUsername() != null)
+                ? client.getUser().getUsername() : "Customer";
+        String customerEmail = (client != null && client.getUser() != null) ? client.getUser().getEmail() : null;
+
+        if (customerEmail == null || customerEmail.isBlank()) {
+            return;
+        }
+
+        // Create proper template variables for PDF generation
+        Map<String, Object> templateVars = new HashMap<>();
+
+        // Basic order info
+        templateVars.put("orderId", order.getId());
+        templateVars.put("creationDate", LocalDate.now().toString());
+        templateVars.put("orderStatus", order.getStatus());
+        templateVars.put("paymentId", paymentId);
+
+        // Customer info
+        templateVars.put("clientName", customerName);
+        templateVars.put("customerEmail", customerEmail);
+
+        // Food truck info
+        if (order.getFoodTruck() != null) {
+            templateVars.put("foodTruckName", order.getFoodTruck().getName());
+        }
+
+        // Create order lines with proper structure for template
+        List<InvoiceLineDto> orderLines = new ArrayList<>();
+        if (order.getLines() != null) {
+            for (OrderLine line : order.getLines()) {
+                InvoiceLineDto dto = new InvoiceLineDto();
+                dto.setItemName(line.getItem().getName());
+                dto.setQuantity(line.getQuantity());
+                dto.setUnitPrice(String.format("%.2f SAR", line.getUnitPriceAtPurchase()));
+                dto.setLineTotal(String.format("%.2f SAR", line.getUnitPriceAtPurchase() * line.getQuantity()));
+                orderLines.add(dto);
+            }
+        }
+        templateVars.put("orderLines", orderLines);
+
+        // Total price formatting
+        templateVars.put("totalPriceFormatted", String.format("%.2f SAR", order.getTotalPrice()));
+
+        byte[] pdf = pdfService.generateInvoicePdf(templateVars);
+
+        String filename = "Trucksy-Invoice-" + order.getId() + ".pdf";
+        String subject = "Your Trucksy order invoice #" + order.getId();
+
+        String html = String.format("""
+                <div style="font-family:Arial,Helvetica,sans-serif">
+                  <h2 style="margin:0 0 8px 0;color:#ff6b35">Thanks for your order!</h2>
+                  <p style="margin:0 0 12px 0">Your Trucksy order <b>#%s</b> has been paid successfully.</p>
+                  <p style="margin:0 0 12px 0">Order status: <b>%s</b></p>
+                  <p style="margin:0 0 12px 0">Total amount: <b>%.2f SAR</b></p>
+                  <p style="margin:0 0 12px 0">We've attached your invoice as a PDF.</p>
+                  <p style="color:#6b7280;font-size:12px;margin:16px 0 0 0">
+                    If you didn't authorize this payment, please contact support immediately.
+                  </p>
+                </div>
+                """, order.getId(), message, order.getTotalPrice());
+
+        // a failed send throws, so the outbox keeps the message PENDING and retries it
+        pdfMailService.sendHtmlEmailWithAttachmentOrThrow(
+                customerEmail,
+                subject,
+                html,
+                filename,
+                pdf
+        );
+    }
+
+    // Invoice Line DTO for template
+    public static class InvoiceLineDto {
+        private String itemName;
+        private Integer quantity;
+        private String unitPrice;
+        private String lineTotal;
+
+        public String getItemName() {
+            return itemName;
+        }
+
+        public void setItemName(String itemName) {
+            this.itemName = itemName;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+
+        public String getUnitPrice() {
+            return unitPrice;
+        }
+
+        public void setUnitPrice(String unitPrice) {
+            this.unitPrice = unitPrice;
+        }
+
+        public String getLineTotal() {
+            return lineTotal;
+        }
+
+        public void setLineTotal(String lineTotal) {
+            this.lineTotal = lineTotal;
+        }
+    }
+}
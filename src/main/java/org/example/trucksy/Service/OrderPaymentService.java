@@ -0,0 +1,177 @@
+package org.example.trucksy.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.trucksy.Api.ApiException;
+import org.example.trucksy.DTOOut.PendingPaymentRow;
+import org.example.trucksy.Event.OrderStatusChangedEvent;
+import org.example.trucksy.Model.User;
+import org.example.trucksy.Repository.AuthRepository;
+import org.example.trucksy.Repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+public class OrderPaymentService {
+
+    private final AuthRepository authRepository;
+    private final OrderRepository orderRepository;
+    private final PaymentGateway paymentGateway;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaskExecutor paymentExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${payment.sweep.min-age:PT30S}")
+    private Duration sweepMinAge;
+
+    // longer than connect + read timeout, so a start still waiting on Moyasar is never reconciled
+    @Value("${payment.sweep.stall-after:PT2M}")
+    private Duration stallAfter;
+
+    public OrderPaymentService(AuthRepository authRepository,
+                               OrderRepository orderRepository,
+                               PaymentGateway paymentGateway,
+                               ApplicationEventPublisher eventPublisher,
+                               @Qualifier("paymentExecutor") TaskExecutor paymentExecutor,
+                               MeterRegistry meterRegistry) {
+        this.authRepository = authRepository;
+        this.orderRepository = orderRepository;
+        this.paymentGateway = paymentGateway;
+        this.eventPublisher = eventPublisher;
+        this.paymentExecutor = paymentExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Phase 2 of addOrder: handed to the payment executor only after the PLACED order is committed,
+    // so no transaction or JDBC connection is held while waiting on Moyasar
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (!"PLACED".equals(event.status())) {
+            return;
+        }
+        submit(new PendingPaymentRow(event.orderId(), event.clientId(), event.foodTruckId(), event.ownerId(), event.totalPrice(), event.orderedAt(), null));
+    }
+
+    // picks up orders whose payment was rejected by a full queue or lost with a restart, and starts whose
+    // outcome is unknown (timeout, instance gone mid-call)
+    @Scheduled(fixedDelayString = "${payment.sweep.interval:PT15S}")
+    public void startDeferredPayments() {
+        for (PendingPaymentRow pending : orderRepository.findUnstartedPayments(
+                LocalDateTime.now().minus(sweepMinAge), PageRequest.of(0, 50))) {
+            submit(pending);
+        }
+        for (PendingPaymentRow stalled : orderRepository.findStalledPayments(
+                LocalDateTime.now().minus(stallAfter), PageRequest.of(0, 50))) {
+            execute(() -> reconcile(stalled));
+        }
+    }
+
+    // never blocks the caller: when the queue is full the order stays PENDING and the sweep retries it
+    private void submit(PendingPaymentRow pending) {
+        execute(() -> startPayment(pending));
+    }
+
+    private void execute(Runnable task) {
+        try {
+            paymentExecutor.execute(task);
+        } catch (TaskRejectedException e) {
+            meterRegistry.counter("payment.start", "outcome", "deferred").increment();
+        }
+    }
+
+    private void startPayment(PendingPaymentRow pending) {
+        // the given_id is stored before the call, so whatever happens to the answer the payment can be looked up
+        String givenId = UUID.randomUUID().toString();
+        if (orderRepository.claimPaymentStart(pending.orderId(), givenId, LocalDateTime.now()) == 0) {
+            return; // already started by the sweep or the executor, or no longer PLACED
+        }
+        createPayment(pending, givenId);
+    }
+
+    // asks Moyasar what became of a stalled start: record the payment it has, or send the create again
+    private void reconcile(PendingPaymentRow stalled) {
+        LocalDateTime now = LocalDateTime.now();
+        if (orderRepository.claimPaymentReconcile(stalled.orderId(), now.minus(stallAfter), now) == 0) {
+            return; // reconciled by another instance, or settled by the callback meanwhile
+        }
+
+        Optional<JsonNode> payment;
+        try {
+            payment = paymentGateway.fetchPayment(stalled.paymentId());
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            outcomeUnknown(stalled.orderId(), e);
+            return;
+        }
+        if (payment.isEmpty()) {
+            // never created: same given_id, so a create that lands late cannot make it two payments
+            createPayment(stalled, stalled.paymentId());
+            return;
+        }
+        recordHandle(stalled.orderId(), payment.get());
+        meterRegistry.counter("payment.start", "outcome", "reconciled").increment();
+    }
+
+    private void createPayment(PendingPaymentRow pending, String givenId) {
+        Integer orderId = pending.orderId();
+        Double totalPrice = pending.totalPrice();
+        try {
+            User user = authRepository.findUserById(pending.clientId());
+            if (user == null || user.getBankCard() == null) {
+                throw new ApiException("User/BankCard not found");
+            }
+            JsonNode body = paymentGateway.createPayment(
+                    user.getBankCard(),
+                    Math.round(totalPrice * 100), // Convert to cents
+                    "/api/v1/order/callback/" + orderId,
+                    givenId
+            );
+
+            recordHandle(orderId, body);
+            meterRegistry.counter("payment.start", "outcome", "started").increment();
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            // no answer, or a gateway error after the request reached Moyasar: the payment may exist, so it is
+            // not cancelled (a PAID callback for a cancelled order would be dropped) but reconciled by the sweep
+            outcomeUnknown(orderId, e);
+        } catch (Exception e) {
+            meterRegistry.counter("payment.start", "outcome", "failed").increment();
+            if (orderRepository.markPaymentFailed(orderId, truncate(e.getMessage())) == 1) {
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                        orderId, pending.clientId(), pending.foodTruckId(), pending.ownerId(), "PLACED", "CANCELLED", totalPrice, pending.orderedAt(), false));
+            }
+        }
+    }
+
+    private void recordHandle(Integer orderId, JsonNode payment) {
+        orderRepository.updatePaymentHandle(
+                orderId,
+                payment.path("id").asText(null),
+                payment.path("status").asText("initiated").toUpperCase(),
+                payment.path("source").path("transaction_url").asText(null)
+        );
+    }
+
+    private void outcomeUnknown(Integer orderId, Exception e) {
+        meterRegistry.counter("payment.start", "outcome", "unknown").increment();
+        orderRepository.markPaymentUnknown(orderId, truncate(e.getMessage()));
+    }
+
+    private static String truncate(String error) {
+        if (error == null) return null;
+        return error.length() > 500 ? error.substring(0, 500) : error;
+    }
+}
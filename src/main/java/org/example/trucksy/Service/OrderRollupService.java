@@ -0,0 +1,85 @@
+package org.example.trucksy.Service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.trucksy.DTOOut.RollupTotals;
+import org.example.trucksy.Event.OrderStatusChangedEvent;
+import org.example.trucksy.Repository.OrderRollupRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+// Maintains the HOUR / DAY order_rollup buckets of each food truck from order events,
+// so analytics read a few hundred buckets instead of the owner's raw orders.
+// Placement, completion and cancellation all count in the bucket of the order's orderedAt, the same rule
+// the V11 rebuild uses, so live and backfilled buckets agree. DAY buckets are kept, HOUR buckets only for
+// rollup.hour-retention (they feed the 4-week peak hour and the forecast history) and only for orders whose
+// time is known.
+@Service
+@RequiredArgsConstructor
+public class OrderRollupService {
+
+    private static final int PEAK_WINDOW_DAYS = 28;
+
+    private final OrderRollupRepository orderRollupRepository;
+
+    @Value("${rollup.hour-retention:P90D}")
+    private Duration hourRetention;
+
+    // BEFORE_COMMIT so the buckets change together with the order; payment failures arrive without a transaction
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.foodTruckId() == null) {
+            return;
+        }
+
+        double totalPrice = event.totalPrice() != null ? event.totalPrice() : 0.0;
+        int orders = 0, completed = 0, cancelled = 0;
+        double revenue = 0.0, completedRevenue = 0.0;
+        if (event.previousStatus() == null && "PLACED".equals(event.status())) {
+            orders = 1;
+            revenue = totalPrice;
+        } else if ("COMPLETED".equals(event.status())) {
+            completed = 1;
+            completedRevenue = totalPrice;
+        } else if ("CANCELLED".equals(event.status())) {
+            cancelled = 1;
+        } else {
+            return;
+        }
+
+        LocalDateTime orderedAt = event.orderedAt() != null ? event.orderedAt() : LocalDateTime.now();
+        // a day-only orderedAt would pile up at 00:00 and skew the peak hour and the forecast history
+        if (!event.orderedAtEstimated()) {
+            orderRollupRepository.addToBucket(event.foodTruckId(), "HOUR", orderedAt.truncatedTo(ChronoUnit.HOURS),
+                    orders, revenue, completed, completedRevenue, cancelled);
+        }
+        orderRollupRepository.addToBucket(event.foodTruckId(), "DAY", orderedAt.truncatedTo(ChronoUnit.DAYS),
+                orders, revenue, completed, completedRevenue, cancelled);
+    }
+
+    @Scheduled(cron = "${rollup.prune.cron:0 15 4 * * *}")
+    public void pruneHourlyBuckets() {
+        orderRollupRepository.deleteHourlyBefore(LocalDateTime.now().minus(hourRetention).truncatedTo(ChronoUnit.HOURS));
+    }
+
+    // e.g. "18:00-19:00", from the last four weeks of hourly buckets
+    public String peakOrdersLabel(Integer ownerId) {
+        Integer hour = orderRollupRepository.findPeakHourByOwner(ownerId,
+                LocalDateTime.now().minusDays(PEAK_WINDOW_DAYS).truncatedTo(ChronoUnit.HOURS));
+        if (hour == null) {
+            return "N/A";
+        }
+        return String.format("%02d:00-%02d:00", hour, (hour + 1) % 24);
+    }
+
+    public RollupTotals lastDays(Integer ownerId, int days) {
+        return orderRollupRepository.sumDailyByOwnerSince(ownerId,
+                LocalDateTime.now().minusDays(days).truncatedTo(ChronoUnit.DAYS));
+    }
+}
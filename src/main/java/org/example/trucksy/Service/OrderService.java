@@ -3,19 +3,22 @@ package org.example.trucksy.Service;
 import lombok.RequiredArgsConstructor;
 import org.example.trucksy.Api.ApiException;
 import org.example.trucksy.DTO.*;
+import org.example.trucksy.Event.OrderStatusChangedEvent;
 import org.example.trucksy.Model.*;
 import org.example.trucksy.Repository.*;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 import org.json.JSONObject;
-import com.fasterxml.jackson.databind.JsonNode;
 
-import java.time.LocalDate;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -30,14 +33,13 @@ public class OrderService {
     private final AuthRepository authRepository;
     private final OrderRepository orderRepository;
     private final BankCardRepository bankCardRepository;
-    private final WhatsAppService whatsAppService;
-    private final PdfService pdfService;
-    private final PdfMailService pdfMailService;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PaymentGateway paymentGateway;
+    private final PaymentCallbackService paymentCallbackService;
 
-    @Value("${moyasar.api.key}")
-    private String apiKey;
-
-    private static final String MOYASAR_API_URL = "https://api.moyasar.com/v1/payments";
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
 
     @Transactional
     public ResponseEntity<?> addOrder(Integer clientId, Integer foodTruckId, Set<LiensDtoIn> liensDtoIns) {
@@ -62,17 +64,31 @@ public class OrderService {
         if (liensDtoIns == null || liensDtoIns.isEmpty())
             throw new ApiException("Order must contain at least one item");
 
+        // Resolve every item of the cart with a single query instead of one lookup per line
+        Set<Integer> itemIds = new HashSet<>();
+        for (LiensDtoIn lien : liensDtoIns) {
+            Integer qty = lien.getQuantity();
+            if (qty == null || qty <= 0)
+                throw new ApiException("Quantity must be > 0");
+            if (lien.getItemId() == null)
+                throw new ApiException("Item id is required");
+            itemIds.add(lien.getItemId());
+        }
+
+        Map<Integer, Item> itemsById = new HashMap<>();
+        for (Item item : itemRepository.findAllWithFoodTruckAndDiscountByIdIn(itemIds)) {
+            itemsById.put(item.getId(), item);
+        }
+
         Order order = new Order();
-        Set<OrderLine> lines = new LinkedHashSet<>();
+        // keyed by item id so merging duplicate lines is O(1) instead of scanning the lines
+        Map<Integer, OrderLine> linesByItemId = new LinkedHashMap<>();
         Double totalPrice = 0.0;
 
-        // Better duplicate item handling
         for (LiensDtoIn lien : liensDtoIns) {
             Integer qty = lien.getQuantity();
-            if (qty == null || qty <= 0)
-                throw new ApiException("Quantity must be > 0");
 
-            Item item = itemRepository.findItemById(lien.getItemId());
+            Item item = itemsById.get(lien.getItemId());
             if (item == null) {
                 throw new ApiException("Item with ID " + lien.getItemId() + " not found");
             }
@@ -85,11 +101,7 @@ public class OrderService {
                 throw new ApiException("Item " + item.getName() + " does not belong to the selected FoodTruck");
             }
 
-            // Use stream API for cleaner duplicate detection
-            OrderLine existing = lines.stream()
-                    .filter(ol -> ol.getItem().getId().equals(item.getId()))
-                    .findFirst()
-                    .orElse(null);
+            OrderLine existing = linesByItemId.get(item.getId());
 
             if (existing == null) {
                 double unitPrice = item.getPrice();
@@ -98,7 +110,7 @@ public class OrderService {
                 line.setQuantity(qty);
                 line.setUnitPriceAtPurchase(unitPrice);
                 line.setOrder(order);
-                lines.add(line);
+                linesByItemId.put(item.getId(), line);
                 totalPrice += unitPrice * qty;
             } else {
                 // Correct quantity merging and price calculation
@@ -112,69 +124,58 @@ public class OrderService {
         }
 
         order.setStatus("PLACED");
+        order.setPaymentStatus("PENDING");
         order.setTotalPrice(totalPrice);
-        order.setLines(lines);
+        order.setLines(new LinkedHashSet<>(linesByItemId.values()));
         order.setClient(client);
         order.setFoodTruck(foodTruck);
         orderRepository.save(order);
 
-        // Fixed callback URL to use AWS and match working pattern
-        String callbackUrl = "http://trucksy-test-application-env.eba-vm3jvf3z.us-east-1.elasticbeanstalk.com/api/v1/order/callback/" + order.getId();
-
-        // Create request body following the same pattern as your working implementation
-        String requestBody = String.format(
-                "source[type]=card&source[name]=%s&source[number]=%s&source[cvc]=%s&source[month]=%s&source[year]=%s&amount=%d&currency=%s&callback_url=%s",
-                user.getBankCard().getName(),
-                user.getBankCard().getNumber(),
-                user.getBankCard().getCvc(),
-                user.getBankCard().getMonth(),
-                user.getBankCard().getYear(),
-                (int) Math.round(totalPrice * 100), // Convert to cents
-                "SAR",
-                callbackUrl
-        );
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBasicAuth(apiKey, "");
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        // Phase 1 only persists the PLACED order. The Moyasar call is made by OrderPaymentService
+        // on the payment executor after this transaction commits
+        Integer ownerId = foodTruck.getOwner() != null ? foodTruck.getOwner().getId() : null;
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                order.getId(), clientId, foodTruckId, ownerId, null, "PLACED", totalPrice, order.getOrderedAt(), false));
 
-        HttpEntity<String> entity = new HttpEntity<>(requestBody, headers);
-        RestTemplate restTemplate = new RestTemplate();
+        PaymentHandleDtoOut handle = new PaymentHandleDtoOut(
+                order.getId(), order.getStatus(), order.getPaymentStatus(), null, null);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(handle);
+    }
 
-        ResponseEntity<JsonNode> response = restTemplate.exchange(
-                MOYASAR_API_URL,
-                HttpMethod.POST,
-                entity,
-                JsonNode.class
+    @Transactional(readOnly = true)
+    public PaymentHandleDtoOut getPaymentHandle(Integer clientId, Integer orderId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new ApiException("Order not found"));
+        if (order.getClient() == null || !order.getClient().getId().equals(clientId)) {
+            throw new ApiException("Order does not belong to this client");
+        }
+        return new PaymentHandleDtoOut(
+                order.getId(),
+                order.getStatus(),
+                order.getPaymentStatus(),
+                order.getPaymentId(),
+                order.getPaymentUrl()
         );
-
-        // Return the response body from Moyasar (includes payment process URL as JSON)
-        return ResponseEntity.status(response.getStatusCode()).body(response.getBody().toString());
     }
 
     public String getPaymentStatus(String paymentId) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBasicAuth(apiKey, "");
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-        RestTemplate restTemplate = new RestTemplate();
-
-        ResponseEntity<String> response = restTemplate.exchange(
-                MOYASAR_API_URL + "/" + paymentId,
-                HttpMethod.GET,
-                entity,
-                String.class
-        );
-
-        return response.getBody();
+        return paymentGateway.getPayment(paymentId);
     }
 
     @Transactional
     public ResponseEntity<?> handlePaymentCallback(Integer orderId, String transaction_id, String status, String message) {
+        // Moyasar retries callbacks: a transaction id is processed once, duplicates return before any outbound call
+        if (!paymentCallbackService.tryClaim(transaction_id, "ORDER", orderId)) {
+            return ResponseEntity.ok(alreadyProcessed(orderId, transaction_id));
+        }
+
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ApiException("Error, the order does not exist"));
 
+        if (!"PLACED".equals(order.getStatus())) {
+            return ResponseEntity.ok(alreadyProcessed(orderId, transaction_id));
+        }
+
         // Check the payment status from Moyasar to verify it's a legitimate callback
         String response = getPaymentStatus(transaction_id);
         JSONObject paymentStatus = new JSONObject(response);
@@ -197,28 +198,24 @@ public class OrderService {
             throw new ApiException("Error, the invoice was not paid");
         }
 
-        // Deduct amount from bank card
-        Client client = order.getClient();
-        User user = authRepository.findUserById(client.getId());
-        if (user == null || user.getBankCard() == null) {
+        // Deduct amount from bank card (the card shares the client's user id)
+        if (bankCardRepository.deductAmount(order.getClient().getId(), order.getTotalPrice()) == 0) {
             throw new ApiException("User/BankCard not found");
         }
 
-        BankCard bankCard = user.getBankCard();
-        double newAmount = bankCard.getAmount() - order.getTotalPrice();
-        bankCard.setAmount(newAmount);
-        bankCardRepository.save(bankCard);
-
         // Update order status
         order.setStatus("PAID");
+        order.setPaymentStatus("PAID");
         orderRepository.save(order);
+        publishStatusChange(order, "PLACED");
 
-        // Send WhatsApp notification to food truck owner
+        // Side effects are only recorded in the outbox here; OutboxService delivers them after commit,
+        // so a slow or failing channel can neither hold this callback nor roll back a paid order
         FoodTruck ft = order.getFoodTruck();
         if (ft != null && ft.getOwner() != null && ft.getOwner().getUser() != null) {
             String ownerPhone = ft.getOwner().getUser().getPhoneNumber();
             if (ownerPhone != null && !ownerPhone.isBlank()) {
-                whatsAppService.sendText(
+                outboxService.enqueueWhatsApp(
                         ownerPhone,
                         "🚚 New Order Received! Order #" + order.getId() + " from " + ft.getName() +
                                 ". Total: " + order.getTotalPrice() + " SAR. Check your dashboard for details."
@@ -226,79 +223,8 @@ public class OrderService {
             }
         }
 
-        // Send invoice email with proper data structure
-        try {
-            String customerName = (client.getUser() != null && client.getUser().getUsername() != null)
-                    ? client.getUser().getUsername() : "Customer";
-            String customerEmail = (client.getUser() != null) ? client.getUser().getEmail() : null;
-
-            if (customerEmail != null && !customerEmail.isBlank()) {
-                // Create proper template variables for PDF generation
-                Map<String, Object> templateVars = new HashMap<>();
-
-                // Basic order info
-                templateVars.put("orderId", order.getId());
-                templateVars.put("creationDate", LocalDate.now().toString());
-                templateVars.put("orderStatus", order.getStatus());
-                templateVars.put("paymentId", transaction_id);
-
-                // Customer info
-                templateVars.put("clientName", customerName);
-                templateVars.put("customerEmail", customerEmail);
-
-                // Food truck info
-                if (order.getFoodTruck() != null) {
-                    templateVars.put("foodTruckName", order.getFoodTruck().getName());
-                }
-
-                // Create order lines with proper structure for template
-                List<InvoiceLineDto> orderLines = new ArrayList<>();
-                if (order.getLines() != null) {
-                    for (OrderLine line : order.getLines()) {
-                        InvoiceLineDto dto = new InvoiceLineDto();
-                        dto.setItemName(line.getItem().getName());
-                        dto.setQuantity(line.getQuantity());
-                        dto.setUnitPrice(String.format("%.2f SAR", line.getUnitPriceAtPurchase()));
-                        dto.setLineTotal(String.format("%.2f SAR", line.getUnitPriceAtPurchase() * line.getQuantity()));
-                        orderLines.add(dto);
-                    }
-                }
-                templateVars.put("orderLines", orderLines);
-
-                // Total price formatting
-                templateVars.put("totalPriceFormatted", String.format("%.2f SAR", order.getTotalPrice()));
-
-                // Generate PDF with corrected method call
-                byte[] pdf = pdfService.generateInvoicePdf(templateVars);
-
-                String filename = "Trucksy-Invoice-" + order.getId() + ".pdf";
-                String subject = "Your Trucksy order invoice #" + order.getId();
-
-                String html = String.format("""
-                        <div style="font-family:Arial,Helvetica,sans-serif">
-                          <h2 style="margin:0 0 8px 0;color:#ff6b35">Thanks for your order!</h2>
-                          <p style="margin:0 0 12px 0">Your Trucksy order <b>#%s</b> has been paid successfully.</p>
-                          <p style="margin:0 0 12px 0">Order status: <b>%s</b></p>
-                          <p style="margin:0 0 12px 0">Total amount: <b>%.2f SAR</b></p>
-                          <p style="margin:0 0 12px 0">We've attached your invoice as a PDF.</p>
-                          <p style="color:#6b7280;font-size:12px;margin:16px 0 0 0">
-                            If you didn't authorize this payment, please contact support immediately.
-                          </p>
-                        </div>
-                        """, order.getId(), message, order.getTotalPrice());
-
-                pdfMailService.sendHtmlEmailWithAttachment(
-                        customerEmail,
-                        subject,
-                        html,
-                        filename,
-                        pdf
-                );
-            }
-        } catch (Exception mailErr) {
-            // Don't break the success flow if email fails
-            System.err.println("Failed to send invoice email: " + mailErr.getMessage());
-        }
+        // Invoice PDF + email
+        outboxService.enqueueOrderInvoice(order.getId(), transaction_id, message);
 
         // Create response similar to BA implementation
         Map<String, Object> result = new HashMap<>();
@@ -310,6 +236,31 @@ public class OrderService {
         return ResponseEntity.ok(result);
     }
 
+    // consumed after commit (owner order stream, ...), never inside this transaction
+    private void publishStatusChange(Order order, String previousStatus) {
+        FoodTruck ft = order.getFoodTruck();
+        Integer ownerId = (ft != null && ft.getOwner() != null) ? ft.getOwner().getId() : null;
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                order.getId(),
+                order.getClient() != null ? order.getClient().getId() : null,
+                ft != null ? ft.getId() : null,
+                ownerId,
+                previousStatus,
+                order.getStatus(),
+                order.getTotalPrice(),
+                order.getOrderedAt(),
+                Boolean.TRUE.equals(order.getOrderedAtEstimated())
+        ));
+    }
+
+    private Map<String, Object> alreadyProcessed(Integer orderId, String transactionId) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("orderId", orderId);
+        result.put("paymentId", transactionId);
+        result.put("status", "Payment callback already processed");
+        return result;
+    }
+
     @Transactional
     public void changeOrderStatusToReady(Integer OwnerId, Integer foodTruckId, Integer orderId) {
         if (OwnerId == null || foodTruckId == null || orderId == null) {
@@ -335,6 +286,7 @@ public class OrderService {
 
         order.setStatus("READY");
         orderRepository.save(order);
+        publishStatusChange(order, "PAID");
 
         // Notify client via WhatsApp
         Client client = order.getClient();
@@ -342,7 +294,7 @@ public class OrderService {
             String phone = client.getUser().getPhoneNumber();
             if (phone != null && !phone.isBlank()) {
                 String truckName = (ft.getName() != null && !ft.getName().isBlank()) ? ft.getName() : "Food Truck";
-                whatsAppService.sendText(
+                outboxService.enqueueWhatsApp(
                         phone,
                         "✅ طلبك رقم #" + order.getId() + " من " + truckName + " جاهز للاستلام.\n" +
                                 "✅ Your order #" + order.getId() + " from " + truckName + " is READY for pickup."
@@ -376,6 +328,7 @@ public class OrderService {
 
         order.setStatus("COMPLETED");
         orderRepository.save(order);
+        publishStatusChange(order, "READY");
 
         // Notify client via WhatsApp
         Client client = order.getClient();
@@ -383,7 +336,7 @@ public class OrderService {
             String phone = client.getUser().getPhoneNumber();
             if (phone != null && !phone.isBlank()) {
                 String truckName = (ft.getName() != null && !ft.getName().isBlank()) ? ft.getName() : "Food Truck";
-                whatsAppService.sendText(
+                outboxService.enqueueWhatsApp(
                         phone,
                         "🎉 تم إكمال طلبك رقم #" + order.getId() + " من " + truckName + ". بالعافية! \n" +
                                 "🎉 Your order #" + order.getId() + " from " + truckName + " is COMPLETED. Enjoy!"
@@ -392,74 +345,59 @@ public class OrderService {
         }
     }
 
-    // Invoice Line DTO for template
-    public static class InvoiceLineDto {
-        private String itemName;
-        private Integer quantity;
-        private String unitPrice;
-        private String lineTotal;
-
-        public String getItemName() {
-            return itemName;
-        }
-
-        public void setItemName(String itemName) {
-            this.itemName = itemName;
-        }
-
-        public Integer getQuantity() {
-            return quantity;
-        }
-
-        public void setQuantity(Integer quantity) {
-            this.quantity = quantity;
-        }
-
-        public String getUnitPrice() {
-            return unitPrice;
-        }
-
-        public void setUnitPrice(String unitPrice) {
-            this.unitPrice = unitPrice;
-        }
-
-        public String getLineTotal() {
-            return lineTotal;
-        }
-
-        public void setLineTotal(String lineTotal) {
-            this.lineTotal = lineTotal;
-        }
-    }
-
     @Transactional(readOnly = true)
-    public List<OrderDtoOut> getOrdersForFoodTruckDto(Integer foodTruckId) {
+    public OrderPageDtoOut getOrdersForFoodTruckDto(Integer foodTruckId, String cursor, Integer size) {
         if (foodTruckRepository.findFoodTruckById(foodTruckId) == null)
             throw new ApiException("FoodTruck not found");
 
-        List<Order> orders = orderRepository.findByFoodTruck_IdOrderByIdDesc(foodTruckId);
-        List<OrderDtoOut> result = new ArrayList<>();
-
-        for (Order o : orders) {
-            OrderDtoOut dto = mapOrderToDtoOut(o, true, false);
-            result.add(dto);
-        }
-        return result;
+        int pageSize = resolvePageSize(size);
+        // one extra id tells us whether another page exists
+        List<Integer> ids = orderRepository.findIdPageByFoodTruck(
+                foodTruckId, decodeCursor(cursor), PageRequest.of(0, pageSize + 1));
+        return toOrderPage(ids, pageSize, true, false);
     }
 
     @Transactional(readOnly = true)
-    public List<OrderDtoOut> getOrdersForClientDto(Integer clientId) {
+    public OrderPageDtoOut getOrdersForClientDto(Integer clientId, String cursor, Integer size) {
         if (clientRepository.findClientById(clientId) == null)
             throw new ApiException("Client not found");
 
-        List<Order> orders = orderRepository.findByClient_IdOrderByIdDesc(clientId);
-        List<OrderDtoOut> result = new ArrayList<>();
+        int pageSize = resolvePageSize(size);
+        List<Integer> ids = orderRepository.findIdPageByClient(
+                clientId, decodeCursor(cursor), PageRequest.of(0, pageSize + 1));
+        return toOrderPage(ids, pageSize, false, true);
+    }
 
-        for (Order o : orders) {
-            OrderDtoOut dto = mapOrderToDtoOut(o, false, true);
-            result.add(dto);
+    private OrderPageDtoOut toOrderPage(List<Integer> ids, int pageSize, boolean includeClient, boolean includeFoodTruck) {
+        boolean hasMore = ids.size() > pageSize;
+        List<Integer> pageIds = hasMore ? ids.subList(0, pageSize) : ids;
+
+        List<OrderDtoOut> result = loadOrderDtos(pageIds, includeClient, includeFoodTruck);
+
+        String nextCursor = hasMore ? encodeCursor(pageIds.get(pageIds.size() - 1)) : null;
+        return new OrderPageDtoOut(result, nextCursor, hasMore);
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null) return DEFAULT_PAGE_SIZE;
+        if (size < 1 || size > MAX_PAGE_SIZE)
+            throw new ApiException("size must be between 1 and " + MAX_PAGE_SIZE);
+        return size;
+    }
+
+    // the cursor is opaque to clients: the last order id of the previous page, base64url encoded
+    private String encodeCursor(Integer lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(lastId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Integer decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return Integer.MAX_VALUE;
+        try {
+            return Integer.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new ApiException("Invalid cursor");
         }
-        return result;
     }
 
     @Transactional(readOnly = true)
@@ -467,65 +405,55 @@ public class OrderService {
         if (foodTruckRepository.findFoodTruckById(foodTruckId) == null)
             throw new ApiException("FoodTruck not found");
 
-        Order order = orderRepository.findByIdAndFoodTruck_Id(orderId, foodTruckId)
-                .orElseThrow(() -> new ApiException("Order not found for this FoodTruck"));
+        List<OrderHeaderRow> headers = orderRepository.findOrderHeadersByIdIn(List.of(orderId));
+        if (headers.isEmpty() || !foodTruckId.equals(headers.get(0).foodTruckId()))
+            throw new ApiException("Order not found for this FoodTruck");
 
-        return mapOrderToDtoOut(order, true, false);
+        return toOrderDtos(headers, orderRepository.findOrderLinesByOrderIdIn(List.of(orderId)), true, false).get(0);
     }
 
-    private OrderDtoOut mapOrderToDtoOut(Order order, boolean includeClient, boolean includeFoodTruck) {
-        OrderDtoOut dto = new OrderDtoOut();
-        dto.setId(order.getId());
-        dto.setStatus(order.getStatus());
-        dto.setTotalPrice(order.getTotalPrice());
-
-        if (includeClient) {
-            ClientSummaryDtoOut clientDto = null;
-            Client client = order.getClient();
-            if (client != null) {
-                clientDto = new ClientSummaryDtoOut();
-                clientDto.setId(client.getId());
-
-                User u = client.getUser();
-                if (u != null) {
-                    clientDto.setUsername(u.getUsername());
-                    clientDto.setEmail(u.getEmail());
-                    clientDto.setPhone(u.getPhoneNumber());
-                }
-            }
-            dto.setClient(clientDto);
-        } else {
-            dto.setClient(null);
+    // two projection queries per call (headers, lines), returned in the order of the given ids
+    private List<OrderDtoOut> loadOrderDtos(List<Integer> orderIds, boolean includeClient, boolean includeFoodTruck) {
+        if (orderIds.isEmpty()) return new ArrayList<>();
+
+        Map<Integer, OrderHeaderRow> headersById = new HashMap<>();
+        for (OrderHeaderRow h : orderRepository.findOrderHeadersByIdIn(orderIds)) {
+            headersById.put(h.id(), h);
+        }
+        List<OrderHeaderRow> headers = new ArrayList<>();
+        for (Integer id : orderIds) {
+            OrderHeaderRow h = headersById.get(id);
+            if (h != null) headers.add(h);
         }
+        return toOrderDtos(headers, orderRepository.findOrderLinesByOrderIdIn(orderIds), includeClient, includeFoodTruck);
+    }
 
-        if (includeFoodTruck) {
-            FoodTruckSummaryDtoOut truckDto = null;
-            if (order.getFoodTruck() != null) {
-                truckDto = new FoodTruckSummaryDtoOut();
-                truckDto.setId(order.getFoodTruck().getId());
-                truckDto.setName(order.getFoodTruck().getName());
-                truckDto.setCategory(order.getFoodTruck().getCategory());
-                truckDto.setStatus(order.getFoodTruck().getStatus());
-            }
-            dto.setFoodTruck(truckDto);
-        } else {
-            dto.setFoodTruck(null);
+    private List<OrderDtoOut> toOrderDtos(List<OrderHeaderRow> headers, List<OrderLineRow> lines,
+                                          boolean includeClient, boolean includeFoodTruck) {
+        Map<Integer, List<OrderLineDtoOut>> linesByOrderId = new HashMap<>();
+        for (OrderLineRow l : lines) {
+            linesByOrderId.computeIfAbsent(l.orderId(), k -> new ArrayList<>())
+                    .add(new OrderLineDtoOut(l.itemId(), l.itemName(), l.quantity(), l.unitPriceAtPurchase()));
         }
 
-        List<OrderLineDtoOut> lineDtos = new ArrayList<>();
-        if (order.getLines() != null) {
-            for (OrderLine ol : order.getLines()) {
-                OrderLineDtoOut ld = new OrderLineDtoOut();
-                if (ol.getItem() != null) {
-                    ld.setItemId(ol.getItem().getId());
-                    ld.setItemName(ol.getItem().getName());
-                }
-                ld.setQuantity(ol.getQuantity());
-                ld.setUnitPriceAtPurchase(ol.getUnitPriceAtPurchase());
-                lineDtos.add(ld);
+        List<OrderDtoOut> result = new ArrayList<>();
+        for (OrderHeaderRow h : headers) {
+            OrderDtoOut dto = new OrderDtoOut();
+            dto.setId(h.id());
+            dto.setStatus(h.status());
+            dto.setTotalPrice(h.totalPrice());
+
+            if (includeClient && h.clientId() != null) {
+                dto.setClient(new ClientSummaryDtoOut(h.clientId(), h.clientUsername(), h.clientEmail(), h.clientPhone()));
+            }
+            if (includeFoodTruck && h.foodTruckId() != null) {
+                dto.setFoodTruck(new FoodTruckSummaryDtoOut(h.foodTruckId(), h.foodTruckName(),
+                        h.foodTruckCategory(), h.foodTruckStatus()));
             }
+
+            dto.setLines(linesByOrderId.getOrDefault(h.id(), new ArrayList<>()));
+            result.add(dto);
         }
-        dto.setLines(lineDtos);
-        return dto;
+        return result;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,167 @@
+package org.example.trucksy.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.trucksy.Api.ApiException;
+import org.example.trucksy.DTOOut.OrderStatusStreamDtoOut;
+import org.example.trucksy.Event.OrderStatusChangedEvent;
+import org.example.trucksy.Model.FoodTruck;
+import org.example.trucksy.Repository.FoodTruckRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pushes order status transitions to the owner dashboards subscribed to a food truck.
+// An idle SseEmitter holds no thread (the servlet request is async). Each subscriber has its own queue drained by
+// at most one virtual thread at a time, so its events arrive in publish order and a ping never interleaves an event.
+@Service
+public class OrderStreamService {
+
+    private final FoodTruckRepository foodTruckRepository;
+    private final TaskExecutor orderStreamExecutor;
+
+    // a client this far behind is not reading; it is dropped rather than buffered without limit
+    private static final int MAX_PENDING_EVENTS = 256;
+
+    private final Map<Integer, Set<Subscriber>> subscribersByTruck = new ConcurrentHashMap<>();
+
+    @Value("${order-stream.timeout:PT30M}")
+    private Duration timeout;
+
+    public OrderStreamService(FoodTruckRepository foodTruckRepository,
+                              @Qualifier("orderStreamExecutor") TaskExecutor orderStreamExecutor,
+                              MeterRegistry meterRegistry) {
+        this.foodTruckRepository = foodTruckRepository;
+        this.orderStreamExecutor = orderStreamExecutor;
+        meterRegistry.gauge("order.stream.subscribers", this, OrderStreamService::countSubscribers);
+    }
+
+    public SseEmitter subscribe(Integer ownerId, Integer foodTruckId) {
+        FoodTruck ft = foodTruckRepository.findFoodTruckById(foodTruckId);
+        if (ft == null) throw new ApiException("FoodTruck not found");
+        if (ft.getOwner() == null || !ft.getOwner().getId().equals(ownerId)) {
+            throw new ApiException("Owner does not own this FoodTruck");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(foodTruckId, emitter);
+
+        Runnable remove = () -> unsubscribe(subscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        // queued before the subscriber is visible to publishers, so "connected" is always the first event
+        subscriber.enqueue(SseEmitter.event().name("connected").data(foodTruckId));
+        subscribersByTruck.computeIfAbsent(foodTruckId, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        return emitter;
+    }
+
+    // fallbackExecution: payment failures are published outside a transaction
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        Set<Subscriber> subscribers = subscribersByTruck.get(event.foodTruckId());
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+
+        OrderStatusStreamDtoOut payload = new OrderStatusStreamDtoOut(
+                event.orderId(), event.foodTruckId(), event.previousStatus(), event.status(), event.totalPrice());
+        for (Subscriber subscriber : subscribers) {
+            // only queues: a slow connection never delays the others (or the committing thread)
+            subscriber.enqueue(SseEmitter.event()
+                    .name("order-status")
+                    .id(String.valueOf(event.orderId()))
+                    .data(payload, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    // keeps proxies from closing idle streams and detects dead clients
+    @Scheduled(fixedDelayString = "${order-stream.heartbeat:PT20S}")
+    public void heartbeat() {
+        subscribersByTruck.values().forEach(subscribers -> {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.enqueue(SseEmitter.event().comment("ping"));
+            }
+        });
+    }
+
+    public int countSubscribers() {
+        return subscribersByTruck.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribersByTruck.computeIfPresent(subscriber.foodTruckId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    // one emitter and its pending events; the draining flag admits a single sender at a time
+    private final class Subscriber {
+        private final Integer foodTruckId;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(Integer foodTruckId, SseEmitter emitter) {
+            this.foodTruckId = foodTruckId;
+            this.emitter = emitter;
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder event) {
+            if (pendingCount.incrementAndGet() > MAX_PENDING_EVENTS) {
+                fail(new IllegalStateException("Subscriber is " + MAX_PENDING_EVENTS + " events behind"));
+                return;
+            }
+            pending.add(event);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                orderStreamExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            SseEmitter.SseEventBuilder event;
+            while ((event = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    fail(e);
+                    return;
+                }
+            }
+            draining.set(false);
+            // an event queued after the last poll but before the flag was cleared found the drain still running
+            if (!pending.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void fail(Exception e) {
+            unsubscribe(this);
+            pending.clear();
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.trucksy.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.example.trucksy.Api.ApiException;
+import org.example.trucksy.Model.OutboxMessage;
+import org.example.trucksy.Repository.OutboxMessageRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class OutboxService {
+
+    public static final String WHATSAPP = "WHATSAPP";
+    public static final String ORDER_INVOICE = "ORDER_INVOICE";
+    private static final List<String> CHANNELS = List.of(WHATSAPP, ORDER_INVOICE);
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final WhatsAppService whatsAppService;
+    private final OrderInvoiceService orderInvoiceService;
+    private final TaskExecutor outboxExecutor;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, AtomicLong> backlog = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> lagSeconds = new ConcurrentHashMap<>();
+
+    @Value("${outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbox.initial-backoff:PT5S}")
+    private Duration initialBackoff;
+
+    @Value("${outbox.lease:PT2M}")
+    private Duration lease;
+
+    public OutboxService(OutboxMessageRepository outboxMessageRepository,
+                         WhatsAppService whatsAppService,
+                         OrderInvoiceService orderInvoiceService,
+                         @Qualifier("outboxExecutor") TaskExecutor outboxExecutor,
+                         MeterRegistry meterRegistry) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.whatsAppService = whatsAppService;
+        this.orderInvoiceService = orderInvoiceService;
+        this.outboxExecutor = outboxExecutor;
+        this.meterRegistry = meterRegistry;
+
+        for (String channel : CHANNELS) {
+            backlog.put(channel, meterRegistry.gauge("outbox.backlog", Tags.of("channel", channel), new AtomicLong()));
+            lagSeconds.put(channel, meterRegistry.gauge("outbox.lag.seconds", Tags.of("channel", channel), new AtomicLong()));
+        }
+    }
+
+    // must join the caller's transaction: the message is committed (or rolled back) together with the business change
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueWhatsApp(String to, String body) {
+        enqueue(WHATSAPP, Map.of("to", to, "body", body));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueOrderInvoice(Integer orderId, String paymentId, String message) {
+        enqueue(ORDER_INVOICE, Map.of(
+                "orderId", orderId,
+                "paymentId", paymentId,
+                "message", message == null ? "" : message
+        ));
+    }
+
+    private void enqueue(String channel, Map<String, Object> payload) {
+        OutboxMessage outboxMessage = new OutboxMessage();
+        outboxMessage.setChannel(channel);
+        outboxMessage.setStatus("PENDING");
+        outboxMessage.setAttempts(0);
+        outboxMessage.setNextAttemptAt(LocalDateTime.now());
+        try {
+            outboxMessage.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new ApiException("Failed to serialize outbox payload: " + e.getMessage());
+        }
+        outboxMessageRepository.save(outboxMessage);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval:PT2S}")
+    public void drain() {
+        LocalDateTime now = LocalDateTime.now();
+        outboxMessageRepository.releaseExpiredLeases(now);
+
+        for (OutboxMessage outboxMessage : outboxMessageRepository
+                .findTop50ByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc("PENDING", now)) {
+            // only the worker that wins the claim delivers the message, even with several app instances polling
+            if (outboxMessageRepository.claim(outboxMessage.getId(), now.plus(lease)) == 1) {
+                try {
+                    outboxExecutor.execute(() -> deliver(outboxMessage));
+                } catch (TaskRejectedException e) {
+                    // the workers are saturated: give the claim back and leave the rest of the batch for a later poll
+                    outboxMessageRepository.release(outboxMessage.getId(), outboxMessage.getNextAttemptAt());
+                    record(outboxMessage.getChannel(), "deferred");
+                    break;
+                }
+            }
+        }
+
+        refreshMetrics(now);
+    }
+
+    private void deliver(OutboxMessage outboxMessage) {
+        try {
+            JsonNode payload = objectMapper.readTree(outboxMessage.getPayload());
+            switch (outboxMessage.getChannel()) {
+                case WHATSAPP -> whatsAppService.sendText(payload.get("to").asText(), payload.get("body").asText());
+                case ORDER_INVOICE -> orderInvoiceService.sendOrderInvoice(
+                        payload.get("orderId").asInt(),
+                        payload.get("paymentId").asText(),
+                        payload.get("message").asText()
+                );
+                default -> throw new ApiException("Unknown outbox channel " + outboxMessage.getChannel());
+            }
+            outboxMessage.setStatus("SENT");
+            outboxMessage.setSentAt(LocalDateTime.now());
+            outboxMessage.setLastError(null);
+            record(outboxMessage.getChannel(), "sent");
+        } catch (Exception e) {
+            int attempts = outboxMessage.getAttempts() + 1;
+            outboxMessage.setAttempts(attempts);
+            outboxMessage.setLastError(truncate(e.getMessage()));
+            if (attempts >= maxAttempts) {
+                outboxMessage.setStatus("FAILED");
+                record(outboxMessage.getChannel(), "failed");
+            } else {
+                // exponential backoff: initial, 2x, 4x ...
+                outboxMessage.setStatus("PENDING");
+                outboxMessage.setNextAttemptAt(LocalDateTime.now().plus(initialBackoff.multipliedBy(1L << (attempts - 1))));
+                record(outboxMessage.getChannel(), "retry");
+            }
+        }
+        outboxMessageRepository.save(outboxMessage);
+    }
+
+    private void refreshMetrics(LocalDateTime now) {
+        for (String channel : CHANNELS) {
+            backlog.get(channel).set(outboxMessageRepository.countByChannelAndStatus(channel, "PENDING")
+                    + outboxMessageRepository.countByChannelAndStatus(channel, "IN_FLIGHT"));
+            LocalDateTime oldest = outboxMessageRepository.findOldestUndeliveredCreatedAt(channel);
+            lagSeconds.get(channel).set(oldest == null ? 0 : Duration.between(oldest, now).toSeconds());
+        }
+    }
+
+    private void record(String channel, String outcome) {
+        meterRegistry.counter("outbox.dispatched", "channel", channel, "outcome", outcome).increment();
+    }
+
+    private String truncate(String error) {
+        if (error == null) return null;
+        return error.length() > 500 ? error.substring(0, 500) : error;
+    }
+}
@@ -7,15 +7,14 @@ import org.example.trucksy.DTO.OwnerDTO;
 import org.example.trucksy.DTO.SubscriptionDTO;
 import org.example.trucksy.Model.*;
 import org.example.trucksy.Repository.*;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.json.JSONObject;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -32,11 +31,9 @@ public class OwnerService {
     private final BankCardRepository bankCardRepository;
     private final PdfService pdfService;
     private final PdfMailService pdfMailService;
+    private final PaymentGateway paymentGateway;
+    private final PaymentCallbackService paymentCallbackService;
 
-    @Value("${moyasar.api.key}")
-    private String apiKey;
-
-    private static final String MOYASAR_API_URL = "https://api.moyasar.com/v1/payments";
     private final Integer subscriptionAmount = 30; // Monthly subscription fee
 
     public void registerOwner(OwnerDTO ownerDTO) {
@@ -61,7 +58,7 @@ public class OwnerService {
         dash.setPredictedOrders(0);
         dash.setPeakOrders("N/A");
         dash.setTopSellingItems(null);
-        dash.setUpdateDate(LocalDate.now());
+        dash.setUpdateDate(LocalDateTime.now());
         owner.setDashboard(dash);
         dashboardRepository.save(dash);
     }
@@ -109,34 +106,10 @@ public class OwnerService {
             throw new ApiException("Insufficient funds. Required: " + subscriptionAmount + " SAR for Subscription");
         }
 
-        // Update callback URL to match your working pattern
-        String callbackUrl = "http://trucksy-test-application-env.eba-vm3jvf3z.us-east-1.elasticbeanstalk.com/api/v1/owner/callback/" + owner.getId();
-
-        // Create request body following the same pattern as your working implementation
-        String requestBody = String.format(
-                "source[type]=card&source[name]=%s&source[number]=%s&source[cvc]=%s&source[month]=%s&source[year]=%s&amount=%d&currency=%s&callback_url=%s",
-                user.getBankCard().getName(),
-                user.getBankCard().getNumber(),
-                user.getBankCard().getCvc(),
-                user.getBankCard().getMonth(),
-                user.getBankCard().getYear(),
-                (subscriptionAmount * 100), // Convert to cents
-                "SAR",
-                callbackUrl
-        );
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBasicAuth(apiKey, "");
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-
-        HttpEntity<String> entity = new HttpEntity<>(requestBody, headers);
-        RestTemplate restTemplate = new RestTemplate();
-
-        ResponseEntity<JsonNode> response = restTemplate.exchange(
-                MOYASAR_API_URL,
-                HttpMethod.POST,
-                entity,
-                JsonNode.class
+        ResponseEntity<JsonNode> response = paymentGateway.createPaymentResponse(
+                user.getBankCard(),
+                subscriptionAmount * 100L, // Convert to cents
+                "/api/v1/owner/callback/" + owner.getId()
         );
 
         // Return the response body from Moyasar (includes payment process URL as JSON)
@@ -144,25 +117,16 @@ public class OwnerService {
     }
 
     public String getPaymentStatus(String paymentId) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBasicAuth(apiKey, "");
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-        RestTemplate restTemplate = new RestTemplate();
-
-        ResponseEntity<String> response = restTemplate.exchange(
-                MOYASAR_API_URL + "/" + paymentId,
-                HttpMethod.GET,
-                entity,
-                String.class
-        );
-
-        return response.getBody();
+        return paymentGateway.getPayment(paymentId);
     }
 
     @Transactional
     public ResponseEntity<?> handleSubscriptionPaymentCallback(Integer ownerId, String transaction_id, String status, String message) {
+        // duplicate deliveries of the same transaction return the current subscription without charging again
+        if (!paymentCallbackService.tryClaim(transaction_id, "SUBSCRIPTION", ownerId)) {
+            return ResponseEntity.ok(getSubscriptionStatus(ownerId));
+        }
+
         Owner owner = ownerRepository.findOwnerById(ownerId);
         if (owner == null) {
             throw new ApiException("Error, the owner does not exist");
@@ -192,10 +156,9 @@ public class OwnerService {
 
         // Deduct amount from bank card
         User user = owner.getUser();
-        BankCard bankCard = user.getBankCard();
-        double newAmount = bankCard.getAmount() - subscriptionAmount;
-        bankCard.setAmount(newAmount);
-        bankCardRepository.save(bankCard);
+        if (bankCardRepository.deductAmount(user.getId(), subscriptionAmount) == 0) {
+            throw new ApiException("Bank card not found");
+        }
 
         // Create subscription status
         SubscriptionDTO subscriptionStatus = new SubscriptionDTO();
@@ -0,0 +1,82 @@
+package org.example.trucksy.Service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.trucksy.Api.ApiException;
+import org.example.trucksy.Api.CallbackInProgressException;
+import org.example.trucksy.Model.PaymentCallback;
+import org.example.trucksy.Repository.PaymentCallbackRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Deduplicates Moyasar callbacks by transaction id.
+// The in-memory sets answer repeated deliveries without touching Moyasar or the DB,
+// the unique PaymentCallback.transactionId is the source of truth across instances and restarts.
+@Service
+@RequiredArgsConstructor
+public class PaymentCallbackService {
+
+    private final PaymentCallbackRepository paymentCallbackRepository;
+
+    // the DB constraint still holds once this is cleared, it only costs one existsBy lookup per old id
+    private static final int MAX_REMEMBERED = 100_000;
+
+    private final Set<String> processed = ConcurrentHashMap.newKeySet();
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    // true for the delivery that gets to process the transaction, false once it is committed.
+    // The claim joins the caller's transaction, so a callback that fails (and rolls back) can be delivered again;
+    // until it has committed, duplicates get CallbackInProgressException (409) rather than a success
+    public boolean tryClaim(String transactionId, String target, Integer targetId) {
+        if (transactionId == null || transactionId.isBlank()) {
+            throw new ApiException("transaction id is required");
+        }
+        if (processed.contains(transactionId)) {
+            return false;
+        }
+        if (!inFlight.add(transactionId)) {
+            throw new CallbackInProgressException("Callback " + transactionId + " is still being processed, retry later");
+        }
+
+        if (paymentCallbackRepository.existsByTransactionId(transactionId)) {
+            remember(transactionId);
+            inFlight.remove(transactionId);
+            return false;
+        }
+
+        try {
+            paymentCallbackRepository.saveAndFlush(new PaymentCallback(null, transactionId, target, targetId, null));
+        } catch (DataIntegrityViolationException e) {
+            // another instance recorded it first; this transaction is rollback-only now, the retry will see the record
+            inFlight.remove(transactionId);
+            throw new CallbackInProgressException("Callback " + transactionId + " is being processed by another instance, retry later");
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        remember(transactionId);
+                    }
+                    inFlight.remove(transactionId);
+                }
+            });
+        } else {
+            remember(transactionId);
+            inFlight.remove(transactionId);
+        }
+        return true;
+    }
+
+    private void remember(String transactionId) {
+        if (processed.size() >= MAX_REMEMBERED) {
+            processed.clear();
+        }
+        processed.add(transactionId);
+    }
+}
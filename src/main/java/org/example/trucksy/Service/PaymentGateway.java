@@ -0,0 +1,137 @@
+package org.example.trucksy.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.trucksy.Api.ApiException;
+import org.example.trucksy.Model.BankCard;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.*;
+import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Single entry point to Moyasar for orders and subscriptions
+@Service
+public class PaymentGateway {
+
+    private final RestTemplate moyasarRestTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${moyasar.api.key}")
+    private String apiKey;
+
+    @Value("${moyasar.api.url:https://api.moyasar.com/v1/payments}")
+    private String apiUrl;
+
+    @Value("${moyasar.callback-base-url:http://trucksy-test-application-env.eba-vm3jvf3z.us-east-1.elasticbeanstalk.com}")
+    private String callbackBaseUrl;
+
+    public PaymentGateway(RestTemplate moyasarRestTemplate, MeterRegistry meterRegistry) {
+        this.moyasarRestTemplate = moyasarRestTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // amount is in halalas (SAR * 100), callbackPath like "/api/v1/order/callback/5". givenId (a UUID v4) becomes
+    // the payment id, so a create whose answer was lost can be fetched, or sent again without a second charge
+    public JsonNode createPayment(BankCard bankCard, long amount, String callbackPath, String givenId) {
+        return createPaymentResponse(bankCard, amount, callbackPath, givenId).getBody();
+    }
+
+    // same call, keeping Moyasar's status code for callers that pass the response through
+    public ResponseEntity<JsonNode> createPaymentResponse(BankCard bankCard, long amount, String callbackPath) {
+        return createPaymentResponse(bankCard, amount, callbackPath, null);
+    }
+
+    private ResponseEntity<JsonNode> createPaymentResponse(BankCard bankCard, long amount, String callbackPath, String givenId) {
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("source[type]", "card");
+        form.add("source[name]", bankCard.getName());
+        form.add("source[number]", bankCard.getNumber());
+        form.add("source[cvc]", bankCard.getCvc());
+        form.add("source[month]", bankCard.getMonth());
+        form.add("source[year]", bankCard.getYear());
+        form.add("amount", String.valueOf(amount));
+        form.add("currency", "SAR");
+        form.add("callback_url", callbackBaseUrl + callbackPath);
+        if (givenId != null) {
+            form.add("given_id", givenId);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBasicAuth(apiKey, "");
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+
+        HttpEntity<MultiValueMap<String, String>> entity = new HttpEntity<>(form, headers);
+
+        ResponseEntity<JsonNode> response = timed("create", () -> moyasarRestTemplate.exchange(
+                apiUrl,
+                HttpMethod.POST,
+                entity,
+                JsonNode.class
+        ));
+
+        if (response.getBody() == null) {
+            throw new ApiException("Moyasar returned an empty response");
+        }
+        return response;
+    }
+
+    public String getPayment(String paymentId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBasicAuth(apiKey, "");
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        HttpEntity<String> entity = new HttpEntity<>(headers);
+
+        return timed("fetch", () -> moyasarRestTemplate.exchange(
+                apiUrl + "/" + paymentId,
+                HttpMethod.GET,
+                entity,
+                String.class
+        ).getBody());
+    }
+
+    // the payment as Moyasar has it, or empty when no payment with this id was ever created
+    public Optional<JsonNode> fetchPayment(String paymentId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBasicAuth(apiKey, "");
+
+        HttpEntity<String> entity = new HttpEntity<>(headers);
+
+        try {
+            return Optional.ofNullable(timed("fetch", () -> moyasarRestTemplate.exchange(
+                    apiUrl + "/" + paymentId,
+                    HttpMethod.GET,
+                    entity,
+                    JsonNode.class
+            ).getBody()));
+        } catch (HttpClientErrorException.NotFound e) {
+            return Optional.empty();
+        }
+    }
+
+    // per-operation latency histogram: moyasar.client.requests{operation, outcome}
+    private <T> T timed(String operation, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "SUCCESS";
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            outcome = "ERROR";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("moyasar.client.requests")
+                    .description("Latency of Moyasar API calls")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.mail.MessagingException;
 
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
+import org.example.trucksy.Api.ApiException;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.lang.Nullable;
 import org.springframework.mail.MailException;
@@ -38,6 +39,22 @@ public class PdfMailService {
             String attachmentFilename,
             byte[] pdfBytes,
             @Nullable String... cc
+    ) {
+        try {
+            sendHtmlEmailWithAttachmentOrThrow(to, subject, htmlBody, attachmentFilename, pdfBytes, cc);
+        } catch (ApiException ex) {
+            System.err.println(ex.getMessage());
+        }
+    }
+
+    // same as sendHtmlEmailWithAttachment but a failed send is thrown, so the outbox can retry it
+    public void sendHtmlEmailWithAttachmentOrThrow(
+            String to,
+            String subject,
+            String htmlBody,
+            String attachmentFilename,
+            byte[] pdfBytes,
+            @Nullable String... cc
     ) {
         try {
             MimeMessage mimeMessage = mailSender.createMimeMessage();
@@ -51,7 +68,7 @@ public class PdfMailService {
             helper.addAttachment(attachmentFilename, new ByteArrayResource(pdfBytes), "application/pdf");
             mailSender.send(mimeMessage);
         } catch (MessagingException | MailException ex) {
-            System.err.println("Failed to send HTML email with attachment: " + ex.getMessage());
+            throw new ApiException("Failed to send HTML email with attachment: " + ex.getMessage());
         }
     }
 }
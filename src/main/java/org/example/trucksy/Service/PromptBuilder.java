@@ -0,0 +1,252 @@
+package org.example.trucksy.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.trucksy.Model.Review;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Shared prompt assembly for the analyzers. A template is formatted like String.formatted, except that
+// Section arguments are rendered last into whatever part of ai.prompt.max-tokens the rest of the prompt
+// leaves. Reviews are pre-aggregated locally: a rating histogram, near-identical comments folded into one
+// weighted line, and a rating-stratified sample once they no longer fit.
+// Metrics: ai.prompt.tokens{kind} (estimated size), ai.prompt.truncated{kind}, ai.prompt.dropped{kind}.
+@Component
+public class PromptBuilder {
+
+    // renders itself into at most budgetTokens (estimated); dropped = distinct items left out to fit
+    @FunctionalInterface
+    public interface Section {
+        Rendered render(int budgetTokens);
+    }
+
+    public record Rendered(String text, int dropped) {}
+
+    private final MeterRegistry meterRegistry;
+    private final int maxTokens;
+
+    public PromptBuilder(MeterRegistry meterRegistry,
+                         @Value("${ai.prompt.max-tokens:4000}") int maxTokens) {
+        this.meterRegistry = meterRegistry;
+        this.maxTokens = maxTokens;
+    }
+
+    public String render(String kind, String template, Object... args) {
+        // measure the fixed part with every section empty, then share what is left between the sections
+        Object[] values = args.clone();
+        int sections = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] instanceof Section) {
+                values[i] = "";
+                sections++;
+            }
+        }
+        int budget = sections == 0 ? 0 : Math.max(0, maxTokens - estimateTokens(template.formatted(values))) / sections;
+
+        int dropped = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof Section section) {
+                Rendered rendered = section.render(budget);
+                values[i] = rendered.text();
+                dropped += rendered.dropped();
+            }
+        }
+        String prompt = template.formatted(values);
+
+        meterRegistry.summary("ai.prompt.tokens", "kind", kind).record(estimateTokens(prompt));
+        if (dropped > 0) {
+            meterRegistry.counter("ai.prompt.truncated", "kind", kind).increment();
+            meterRegistry.summary("ai.prompt.dropped", "kind", kind).record(dropped);
+        }
+        return prompt;
+    }
+
+    // one line per item in order; what does not fit is summarized as "... N more <noun> not shown"
+    public Section lines(List<String> lines, String noun) {
+        return budget -> {
+            StringBuilder text = new StringBuilder();
+            int used = 0;
+            int shown = 0;
+            for (String line : lines) {
+                int cost = estimateTokens(line) + 1;
+                if (used + cost > budget) break;
+                text.append(line).append('\n');
+                used += cost;
+                shown++;
+            }
+            int dropped = lines.size() - shown;
+            if (dropped > 0) {
+                text.append("... ").append(dropped).append(" more ").append(noun).append(" not shown\n");
+            }
+            return new Rendered(text.toString(), dropped);
+        };
+    }
+
+    // rating histogram of all reviews, then review lines; a line marked (xN) stands for N reviews
+    public Section reviews(List<Review> reviews) {
+        return budget -> {
+            String histogram = histogram(reviews);
+            Map<Integer, List<ReviewLine>> strata = dedupe(reviews);
+            List<ReviewLine> picked = fit(strata, reviews.size(), budget - estimateTokens(histogram));
+
+            StringBuilder text = new StringBuilder(histogram);
+            for (int i = 0; i < picked.size(); i++) {
+                ReviewLine line = picked.get(i);
+                text.append(line.format(i + 1)).append('\n');
+            }
+            int distinct = strata.values().stream().mapToInt(List::size).sum();
+            return new Rendered(text.toString(), distinct - picked.size());
+        };
+    }
+
+    // rough BPE token count in one pass: an ascii word or number is a token per 6 characters, other letters
+    // (e.g. Arabic) one per 2, every punctuation mark one, whitespace free. Errs slightly high, the safe side.
+    public static int estimateTokens(CharSequence text) {
+        int tokens = 0;
+        int asciiRun = 0;
+        int otherRun = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (c < 128) asciiRun++;
+                else otherRun++;
+                continue;
+            }
+            tokens += (asciiRun + 5) / 6 + (otherRun + 1) / 2;
+            asciiRun = 0;
+            otherRun = 0;
+            if (!Character.isWhitespace(c)) tokens++;
+        }
+        return tokens + (asciiRun + 5) / 6 + (otherRun + 1) / 2;
+    }
+
+    public static String sanitizeComment(String comment) {
+        if (comment == null) return "";
+        // Remove potential JSON-breaking characters and limit length
+        String clean = comment.replaceAll("[\"\\\\]", "'").replaceAll("\\s+", " ").trim();
+        return clean.substring(0, Math.min(clean.length(), 200));
+    }
+
+    private static String histogram(List<Review> reviews) {
+        int[] counts = new int[6];
+        for (Review review : reviews) {
+            counts[clampRating(review.getRating())]++;
+        }
+        return String.format("Rating histogram (%d reviews): 5 stars: %d, 4 stars: %d, 3 stars: %d, 2 stars: %d, 1 star: %d\n",
+                reviews.size(), counts[5], counts[4], counts[3], counts[2], counts[1]);
+    }
+
+    // rating -> distinct comments in first-seen order; case, punctuation and spacing do not make a comment distinct
+    private static Map<Integer, List<ReviewLine>> dedupe(List<Review> reviews) {
+        Map<String, ReviewLine> byKey = new LinkedHashMap<>();
+        for (Review review : reviews) {
+            int rating = clampRating(review.getRating());
+            String comment = sanitizeComment(review.getComment());
+            String key = rating + "|" + comment.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+            byKey.computeIfAbsent(key, k -> new ReviewLine(rating, comment)).weight++;
+        }
+
+        Map<Integer, List<ReviewLine>> strata = new TreeMap<>();
+        for (ReviewLine line : byKey.values()) {
+            strata.computeIfAbsent(line.rating, r -> new ArrayList<>()).add(line);
+        }
+        return strata;
+    }
+
+    // every distinct line if they fit, otherwise an evenly spaced sample per rating sized by the rating's share
+    // (at least one line per rating); picked lines are re-weighted so each rating still adds up to its count
+    private static List<ReviewLine> fit(Map<Integer, List<ReviewLine>> strata, int total, int budget) {
+        int distinct = 0;
+        int cost = 0;
+        for (List<ReviewLine> stratum : strata.values()) {
+            distinct += stratum.size();
+            for (ReviewLine line : stratum) cost += line.cost();
+        }
+        if (cost <= budget) {
+            List<ReviewLine> all = new ArrayList<>();
+            strata.values().forEach(all::addAll);
+            return all;
+        }
+        if (budget <= 0) return List.of();
+
+        int target = Math.max(1, (int) ((long) budget * distinct / cost));
+        Map<Integer, List<ReviewLine>> sample = new TreeMap<>();
+        int sampleCost = 0;
+        for (Map.Entry<Integer, List<ReviewLine>> entry : strata.entrySet()) {
+            List<ReviewLine> stratum = entry.getValue();
+            int reviewsInStratum = stratum.stream().mapToInt(l -> l.weight).sum();
+            int quota = Math.min(stratum.size(), Math.max(1, Math.round((float) target * reviewsInStratum / total)));
+            List<ReviewLine> picked = new ArrayList<>(quota);
+            for (int j = 0; j < quota; j++) {
+                ReviewLine line = stratum.get((int) ((long) j * stratum.size() / quota));
+                picked.add(line);
+                sampleCost += line.cost();
+            }
+            sample.put(entry.getKey(), picked);
+        }
+
+        // rounding can overshoot: drop the last line of the largest sample until it fits
+        while (sampleCost > budget) {
+            List<ReviewLine> largest = sample.values().stream()
+                    .max((a, b) -> Integer.compare(a.size(), b.size()))
+                    .orElseThrow();
+            if (largest.isEmpty()) break;
+            sampleCost -= largest.remove(largest.size() - 1).cost();
+        }
+
+        List<ReviewLine> result = new ArrayList<>();
+        for (Map.Entry<Integer, List<ReviewLine>> entry : sample.entrySet()) {
+            List<ReviewLine> picked = entry.getValue();
+            if (picked.isEmpty()) continue;
+            int reviewsInStratum = strata.get(entry.getKey()).stream().mapToInt(l -> l.weight).sum();
+            int pickedWeight = picked.stream().mapToInt(l -> l.weight).sum();
+            // cumulative rounding: weights sum to the stratum exactly and none drops below 1
+            int cumulative = 0;
+            long previous = 0;
+            for (ReviewLine line : picked) {
+                cumulative += line.weight;
+                long upTo = Math.round((double) cumulative * reviewsInStratum / pickedWeight);
+                result.add(new ReviewLine(line.rating, line.comment, (int) (upTo - previous)));
+                previous = upTo;
+            }
+        }
+        return result;
+    }
+
+    private static int clampRating(Integer rating) {
+        return rating == null ? 3 : Math.max(1, Math.min(5, rating));
+    }
+
+    private static final class ReviewLine {
+        private final int rating;
+        private final String comment;
+        private int weight;
+
+        private ReviewLine(int rating, String comment) {
+            this(rating, comment, 0);
+        }
+
+        private ReviewLine(int rating, String comment, int weight) {
+            this.rating = rating;
+            this.comment = comment;
+            this.weight = weight;
+        }
+
+        private String format(int number) {
+            return weight > 1
+                    ? String.format("Review %d (x%d): Rating=%d, Comment=\"%s\"", number, weight, rating, comment)
+                    : String.format("Review %d: Rating=%d, Comment=\"%s\"", number, rating, comment);
+        }
+
+        // the numbering and weight are not known yet, so price the widest form
+        private int cost() {
+            return estimateTokens(format(9999)) + 3;
+        }
+    }
+}
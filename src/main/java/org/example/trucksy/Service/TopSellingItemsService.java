@@ -0,0 +1,191 @@
+package org.example.trucksy.Service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.trucksy.Analytics.SpaceSavingSketch;
+import org.example.trucksy.DTO.OrderLineRow;
+import org.example.trucksy.DTOOut.ItemSalesRow;
+import org.example.trucksy.Event.OrderStatusChangedEvent;
+import org.example.trucksy.Repository.DashboardRepository;
+import org.example.trucksy.Repository.OrderLineRepository;
+import org.example.trucksy.Repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Dashboard.topSellingItems: a Space-Saving sketch per owner fed by the lines of paid orders,
+// flushed to the dashboard periodically and corrected by an exact recompute every night.
+// After a restart an owner's sketch is seeded from order_line on its first flush rather than all owners at boot.
+// A rebuild (recompute or seed) logs the increments that arrive while it queries and replays them into the
+// fresh sketches before swapping them in, so a concurrent paid order is never lost (at worst one committed just
+// as the query starts is counted twice until the next recompute).
+@Service
+@RequiredArgsConstructor
+public class TopSellingItemsService {
+
+    private final OrderRepository orderRepository;
+    private final OrderLineRepository orderLineRepository;
+    private final DashboardRepository dashboardRepository;
+    private final DashboardCache dashboardCache;
+
+    // guards itemsByOwner (sketches and names) and the replay log; never held during a query
+    private final Object stateLock = new Object();
+    private final Map<Integer, OwnerItems> itemsByOwner = new HashMap<>();
+    // owners being rebuilt -> increments seen since the rebuild query started; replayAll covers every owner
+    private final Map<Integer, List<Increment>> replayByOwner = new HashMap<>();
+    private boolean replayAll;
+    private final Set<Integer> dirtyOwners = ConcurrentHashMap.newKeySet();
+
+    @Value("${top-items.sketch-capacity:64}")
+    private int sketchCapacity;
+
+    @Value("${top-items.top-n:5}")
+    private int topN;
+
+    // sketch plus the names of the items it currently tracks (bounded by the sketch capacity);
+    // unseeded = only the increments since the restart, not yet loaded from order_line
+    private static class OwnerItems {
+        final SpaceSavingSketch<Integer> sketch;
+        final Map<Integer, String> names = new HashMap<>();
+        final boolean seeded;
+
+        OwnerItems(int capacity, boolean seeded) {
+            this.sketch = new SpaceSavingSketch<>(capacity);
+            this.seeded = seeded;
+        }
+
+        void offer(Integer itemId, String itemName, long quantity) {
+            names.put(itemId, itemName);
+            Integer evicted = sketch.offer(itemId, quantity);
+            if (evicted != null) {
+                names.remove(evicted);
+            }
+        }
+    }
+
+    private record Increment(Integer itemId, String itemName, long quantity) {}
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (!"PAID".equals(event.status()) || event.ownerId() == null) {
+            return;
+        }
+
+        List<OrderLineRow> lines = orderRepository.findOrderLinesByOrderIdIn(List.of(event.orderId()));
+        synchronized (stateLock) {
+            OwnerItems items = itemsByOwner.computeIfAbsent(event.ownerId(), k -> new OwnerItems(sketchCapacity, false));
+            List<Increment> replay = replayAll
+                    ? replayByOwner.computeIfAbsent(event.ownerId(), k -> new ArrayList<>())
+                    : replayByOwner.get(event.ownerId());
+            for (OrderLineRow line : lines) {
+                if (line.itemId() == null || line.quantity() == null) continue;
+                items.offer(line.itemId(), line.itemName(), line.quantity());
+                if (replay != null) {
+                    replay.add(new Increment(line.itemId(), line.itemName(), line.quantity()));
+                }
+            }
+        }
+        dirtyOwners.add(event.ownerId());
+    }
+
+    // synchronized with recompute: one rebuild at a time
+    @Scheduled(fixedDelayString = "${top-items.flush-interval:PT1M}")
+    public synchronized void flush() {
+        for (Integer ownerId : List.copyOf(dirtyOwners)) {
+            dirtyOwners.remove(ownerId);
+            boolean seeded;
+            String label = null;
+            synchronized (stateLock) {
+                OwnerItems items = itemsByOwner.get(ownerId);
+                if (items == null) continue;
+                seeded = items.seeded;
+                if (seeded) label = label(items);
+            }
+            // an unseeded sketch only knows the orders since the restart, publishing it would shrink the counts
+            if (seeded) {
+                publish(ownerId, label);
+            } else {
+                rebuild(ownerId);
+            }
+        }
+    }
+
+    // exact units sold from order_line; replaces every sketch so approximation error does not accumulate
+    @Scheduled(cron = "${top-items.recompute.cron:0 30 3 * * *}")
+    public synchronized void recompute() {
+        rebuild(null);
+    }
+
+    // ownerId null = every owner
+    private void rebuild(Integer ownerId) {
+        synchronized (stateLock) {
+            if (ownerId == null) {
+                replayAll = true;
+                dirtyOwners.clear();
+            } else {
+                replayByOwner.put(ownerId, new ArrayList<>());
+            }
+        }
+
+        List<ItemSalesRow> rows = ownerId == null
+                ? orderLineRepository.sumQuantityByOwnerAndItem()
+                : orderLineRepository.sumQuantityByItemForOwner(ownerId);
+        Map<Integer, Map<Integer, Long>> countsByOwner = new HashMap<>();
+        Map<Integer, Map<Integer, String>> namesByOwner = new HashMap<>();
+        for (ItemSalesRow row : rows) {
+            countsByOwner.computeIfAbsent(row.ownerId(), k -> new HashMap<>()).put(row.itemId(), row.quantity());
+            namesByOwner.computeIfAbsent(row.ownerId(), k -> new HashMap<>()).put(row.itemId(), row.itemName());
+        }
+
+        Map<Integer, OwnerItems> fresh = new HashMap<>();
+        if (ownerId != null) {
+            fresh.put(ownerId, new OwnerItems(sketchCapacity, true));
+        }
+        for (Map.Entry<Integer, Map<Integer, Long>> e : countsByOwner.entrySet()) {
+            OwnerItems items = fresh.computeIfAbsent(e.getKey(), k -> new OwnerItems(sketchCapacity, true));
+            items.sketch.reset(e.getValue());
+            for (SpaceSavingSketch.Counter<Integer> c : items.sketch.top(sketchCapacity)) {
+                items.names.put(c.key(), namesByOwner.get(e.getKey()).get(c.key()));
+            }
+        }
+
+        Map<Integer, String> labels = new HashMap<>();
+        synchronized (stateLock) {
+            for (Map.Entry<Integer, List<Increment>> e : replayByOwner.entrySet()) {
+                OwnerItems items = fresh.computeIfAbsent(e.getKey(), k -> new OwnerItems(sketchCapacity, true));
+                for (Increment increment : e.getValue()) {
+                    items.offer(increment.itemId(), increment.itemName(), increment.quantity());
+                }
+            }
+            replayByOwner.clear();
+            replayAll = false;
+            itemsByOwner.putAll(fresh);
+            fresh.forEach((id, items) -> labels.put(id, label(items)));
+        }
+        labels.forEach(this::publish);
+    }
+
+    private void publish(Integer ownerId, String label) {
+        dashboardRepository.setTopSellingItems(ownerId, label);
+        dashboardCache.invalidate(ownerId);
+    }
+
+    // e.g. "Shawarma (~120), Burger (~80)"; approximate counts are prefixed with ~
+    private String label(OwnerItems items) {
+        List<String> parts = new ArrayList<>();
+        for (SpaceSavingSketch.Counter<Integer> c : items.sketch.top(topN)) {
+            String name = items.names.getOrDefault(c.key(), "Item #" + c.key());
+            parts.add(name + " (" + (c.error() > 0 ? "~" : "") + c.count() + ")");
+        }
+        String label = parts.isEmpty() ? null : String.join(", ", parts);
+        return label != null && label.length() > 255 ? label.substring(0, 255) : label;
+    }
+}
@@ -0,0 +1,17 @@
+-- idx_orders_truck_status_id was created by ddl-auto=update from an @Table index on Order that V3 replaced with
+-- idx_orders_truck_status_date. Databases that ran with the annotation still carry it; MySQL has no
+-- "drop index if exists", so the drop is only prepared when the index is there.
+
+set @drop_stale_index = (
+    select if(count(*) > 0,
+              'drop index idx_orders_truck_status_id on orders',
+              'do 0')
+    from information_schema.statistics
+    where table_schema = database()
+      and table_name = 'orders'
+      and index_name = 'idx_orders_truck_status_id'
+);
+
+prepare drop_stale_index from @drop_stale_index;
+execute drop_stale_index;
+deallocate prepare drop_stale_index;
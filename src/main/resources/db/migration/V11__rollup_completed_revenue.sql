@@ -0,0 +1,31 @@
+-- Completed revenue gets its own rollup column; revenue stays the gross value of the orders placed.
+-- The buckets are rebuilt so every count sits in the bucket of the order's ordered_at, which is also the rule
+-- OrderRollupService now applies (live completions and cancellations used to land in the bucket of the event).
+
+alter table order_rollup
+    add column completed_revenue double not null default 0 after completed_count;
+
+-- HOUR pruning and the forecast read by granularity and time across all trucks
+create index idx_order_rollup_granularity_bucket on order_rollup (granularity, bucket_start);
+
+delete from order_rollup;
+
+insert into order_rollup (food_truck_id, granularity, bucket_start, order_count, revenue,
+                          completed_count, completed_revenue, cancelled_count)
+select o.food_truck_id, 'DAY', date(o.ordered_at), count(*), coalesce(sum(o.total_price), 0),
+       sum(o.status = 'COMPLETED'), coalesce(sum(case when o.status = 'COMPLETED' then o.total_price end), 0),
+       sum(o.status = 'CANCELLED')
+from orders o
+where o.food_truck_id is not null and o.ordered_at is not null
+group by o.food_truck_id, date(o.ordered_at);
+
+-- hourly buckets only for the retained window (rollup.hour-retention, 90 days by default), and only for orders
+-- whose time is known (not the day-only orders backfilled by V4)
+insert into order_rollup (food_truck_id, granularity, bucket_start, order_count, revenue,
+                          completed_count, completed_revenue, cancelled_count)
+select o.food_truck_id, 'HOUR', date_format(o.ordered_at, '%Y-%m-%d %H:00:00'), count(*), coalesce(sum(o.total_price), 0),
+       sum(o.status = 'COMPLETED'), coalesce(sum(case when o.status = 'COMPLETED' then o.total_price end), 0),
+       sum(o.status = 'CANCELLED')
+from orders o
+where o.food_truck_id is not null and o.ordered_at >= now() - interval 90 day and not o.ordered_at_estimated
+group by o.food_truck_id, date_format(o.ordered_at, '%Y-%m-%d %H:00:00');
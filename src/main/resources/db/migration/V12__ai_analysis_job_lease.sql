@@ -0,0 +1,11 @@
+-- Unfinished AI jobs are failed once their heartbeat is older than the lease, instead of all of them at every
+-- startup, which also failed the live jobs of the other instances.
+
+alter table ai_analysis_job
+    add column heartbeat_at datetime(6);
+
+update ai_analysis_job set heartbeat_at = coalesce(started_at, created_at) where status in ('QUEUED', 'RUNNING');
+
+drop index idx_ai_analysis_job_status on ai_analysis_job;
+
+create index idx_ai_analysis_job_status_heartbeat on ai_analysis_job (status, heartbeat_at);
@@ -0,0 +1,4 @@
+-- Optimistic lock for the review summary read-add-save (ReviewSummary.version).
+
+alter table review_summary
+    add column version bigint not null default 0;
@@ -0,0 +1,8 @@
+-- A payment start whose outcome is unknown (timeout, instance gone) stays PLACED and is reconciled against Moyasar
+-- by its given_id (payment_id, set before the call) once payment_started_at is older than payment.sweep.stall-after.
+-- STARTING rows from before this migration have no given_id to look up and are left as they are.
+
+alter table orders
+    add column payment_started_at datetime(6);
+
+create index idx_orders_payment_status_started_at on orders (payment_status, payment_started_at);
@@ -0,0 +1,143 @@
+-- Schema as previously created by spring.jpa.hibernate.ddl-auto=update.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate) and skip it.
+
+create table users (
+    id            int          not null auto_increment,
+    username      varchar(20)  not null unique,
+    password      varchar(100) not null,
+    email         varchar(50)  not null unique,
+    phone_number  varchar(12)  not null unique,
+    role          varchar(10)  not null,
+    primary key (id)
+) engine = InnoDB;
+
+create table owner (
+    user_id                 int    not null,
+    subscribed              bit,
+    subscription_start_date date,
+    subscription_end_date   date,
+    primary key (user_id),
+    constraint fk_owner_user foreign key (user_id) references users (id)
+) engine = InnoDB;
+
+create table client (
+    user_id   int          not null,
+    city      varchar(255),
+    district  varchar(255),
+    latitude  float(53),
+    longitude float(53),
+    primary key (user_id),
+    constraint fk_client_user foreign key (user_id) references users (id)
+) engine = InnoDB;
+
+create table bank_card (
+    user_id                      int       not null,
+    name                         varchar(255),
+    number                       varchar(255),
+    cvc                          varchar(255),
+    month                        varchar(255),
+    year                         varchar(255),
+    amount                       float(53) not null,
+    currency                     varchar(255),
+    description                  varchar(255),
+    callback_url                 varchar(255),
+    payment_user_id              varchar(255),
+    redirect_to_complete_payment varchar(255),
+    primary key (user_id),
+    constraint fk_bank_card_user foreign key (user_id) references users (id)
+) engine = InnoDB;
+
+create table dashboard (
+    owner_user_id          int not null,
+    total_orders           int,
+    total_completed_orders int,
+    total_revenue          float(53),
+    predicted_orders       int,
+    peak_orders            varchar(255),
+    top_selling_items      varchar(255),
+    update_date            date,
+    primary key (owner_user_id),
+    constraint fk_dashboard_owner foreign key (owner_user_id) references owner (user_id)
+) engine = InnoDB;
+
+create table food_truck (
+    id            int not null auto_increment,
+    name          varchar(255),
+    description   varchar(255),
+    category      varchar(255),
+    latitude      float(53),
+    longitude     float(53),
+    city          varchar(255),
+    district      varchar(255),
+    status        varchar(255),
+    image_url     varchar(255),
+    image_key     varchar(255),
+    owner_user_id int,
+    primary key (id),
+    constraint fk_food_truck_owner foreign key (owner_user_id) references owner (user_id)
+) engine = InnoDB;
+
+create table item (
+    id             int          not null auto_increment,
+    name           varchar(50)  not null,
+    price          double       not null,
+    description    varchar(200) not null,
+    is_available   boolean      not null,
+    is_discounted  boolean      not null,
+    creation_date  date,
+    update_date    date,
+    image_url      varchar(255),
+    image_key      varchar(255),
+    food_truck_id  int,
+    primary key (id),
+    constraint fk_item_food_truck foreign key (food_truck_id) references food_truck (id)
+) engine = InnoDB;
+
+create table discount (
+    item_id        int          not null,
+    title          varchar(50)  not null,
+    description    varchar(200) not null,
+    percentage     double       not null,
+    start_date     date         not null,
+    end_date       date,
+    is_active      boolean      not null,
+    create_date    date,
+    original_price float(53),
+    primary key (item_id),
+    constraint fk_discount_item foreign key (item_id) references item (id)
+) engine = InnoDB;
+
+create table orders (
+    id             int not null auto_increment,
+    status         varchar(255),
+    order_date     date,
+    total_price    float(53),
+    client_user_id int,
+    food_truck_id  int,
+    primary key (id),
+    constraint fk_orders_client foreign key (client_user_id) references client (user_id),
+    constraint fk_orders_food_truck foreign key (food_truck_id) references food_truck (id)
+) engine = InnoDB;
+
+create table order_line (
+    id                     int not null auto_increment,
+    quantity               int,
+    unit_price_at_purchase float(53),
+    item_id                int,
+    order_id               int,
+    primary key (id),
+    constraint fk_order_line_item foreign key (item_id) references item (id),
+    constraint fk_order_line_order foreign key (order_id) references orders (id)
+) engine = InnoDB;
+
+create table review (
+    id             int          not null auto_increment,
+    rating         int          not null,
+    comment        varchar(200) not null,
+    created_date   date,
+    client_user_id int,
+    food_truck_id  int,
+    primary key (id),
+    constraint fk_review_client foreign key (client_user_id) references client (user_id),
+    constraint fk_review_food_truck foreign key (food_truck_id) references food_truck (id)
+) engine = InnoDB;
@@ -0,0 +1,31 @@
+-- Asynchronous payment start (payment handle on the order), transactional outbox, callback deduplication.
+
+alter table orders
+    add column payment_id     varchar(255),
+    add column payment_status varchar(255),
+    add column payment_url    varchar(255);
+
+create table outbox_message (
+    id              bigint      not null auto_increment,
+    channel         varchar(20) not null,
+    payload         text        not null,
+    status          varchar(20) not null,
+    attempts        int,
+    next_attempt_at datetime(6),
+    created_at      datetime(6),
+    sent_at         datetime(6),
+    last_error      varchar(500),
+    primary key (id)
+) engine = InnoDB;
+
+create index idx_outbox_status_next_attempt on outbox_message (status, next_attempt_at);
+
+create table payment_callback (
+    id             int         not null auto_increment,
+    transaction_id varchar(64) not null,
+    target         varchar(20) not null,
+    target_id      int,
+    received_at    datetime(6),
+    primary key (id),
+    constraint uk_payment_callback_transaction unique (transaction_id)
+) engine = InnoDB;
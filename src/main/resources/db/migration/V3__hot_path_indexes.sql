@@ -0,0 +1,16 @@
+-- Indexes for the real access patterns (checked by QueryPlanTest).
+
+-- owner / truck status queues: where food_truck_id = ? and status = ? order by order_date desc, id desc
+create index idx_orders_truck_status_date on orders (food_truck_id, status, order_date);
+
+-- order lines of a page of orders
+create index idx_order_line_order on order_line (order_id);
+
+-- reviews of a food truck
+create index idx_review_food_truck on review (food_truck_id);
+
+-- available items of a truck in a price range
+create index idx_item_truck_available_price on item (food_truck_id, is_available, price);
+
+-- trucks by category
+create index idx_food_truck_category on food_truck (category);
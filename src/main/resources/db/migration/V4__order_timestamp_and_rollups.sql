@@ -0,0 +1,36 @@
+-- Full-precision order timestamp and per-truck hourly/daily rollups.
+
+alter table orders
+    add column ordered_at           datetime(6),
+    add column ordered_at_estimated boolean not null default false;
+
+-- existing orders only know their day: ordered_at is its midnight and is flagged, so they get DAY buckets only
+update orders set ordered_at = order_date, ordered_at_estimated = true where ordered_at is null;
+
+create table order_rollup (
+    id              bigint     not null auto_increment,
+    food_truck_id   int        not null,
+    granularity     varchar(4) not null,
+    bucket_start    datetime   not null,
+    order_count     int        not null default 0,
+    revenue         double     not null default 0,
+    completed_count int        not null default 0,
+    cancelled_count int        not null default 0,
+    primary key (id),
+    constraint uk_order_rollup_bucket unique (food_truck_id, granularity, bucket_start)
+) engine = InnoDB;
+
+-- backfill from existing orders (completions/cancellations are attributed to the order's own bucket)
+insert into order_rollup (food_truck_id, granularity, bucket_start, order_count, revenue, completed_count, cancelled_count)
+select o.food_truck_id, 'DAY', date(o.ordered_at), count(*), coalesce(sum(o.total_price), 0),
+       sum(o.status = 'COMPLETED'), sum(o.status = 'CANCELLED')
+from orders o
+where o.food_truck_id is not null and o.ordered_at is not null
+group by o.food_truck_id, date(o.ordered_at);
+
+insert into order_rollup (food_truck_id, granularity, bucket_start, order_count, revenue, completed_count, cancelled_count)
+select o.food_truck_id, 'HOUR', date_format(o.ordered_at, '%Y-%m-%d %H:00:00'), count(*), coalesce(sum(o.total_price), 0),
+       sum(o.status = 'COMPLETED'), sum(o.status = 'CANCELLED')
+from orders o
+where o.food_truck_id is not null and o.ordered_at is not null and not o.ordered_at_estimated
+group by o.food_truck_id, date_format(o.ordered_at, '%Y-%m-%d %H:00:00');
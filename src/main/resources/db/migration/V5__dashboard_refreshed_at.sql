@@ -0,0 +1,3 @@
+-- Dashboard.updateDate becomes the time of the last full recompute, not just its day.
+
+alter table dashboard modify column update_date datetime(6);
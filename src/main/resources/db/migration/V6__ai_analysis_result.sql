@@ -0,0 +1,14 @@
+-- Parsed AI analyses keyed by a fingerprint of their prompt inputs.
+
+create table ai_analysis_result (
+    id          bigint      not null auto_increment,
+    kind        varchar(20) not null,
+    fingerprint char(64)    not null,
+    result_json text        not null,
+    created_at  datetime(6),
+    expires_at  datetime(6) not null,
+    primary key (id),
+    constraint uk_ai_analysis_result_fingerprint unique (fingerprint)
+) engine = InnoDB;
+
+create index idx_ai_analysis_result_expires on ai_analysis_result (expires_at);
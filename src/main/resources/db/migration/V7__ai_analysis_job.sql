@@ -0,0 +1,17 @@
+-- AI analyses run as background jobs; the API returns the job id and clients poll for the result.
+
+create table ai_analysis_job (
+    id            bigint      not null auto_increment,
+    owner_id      int         not null,
+    kind          varchar(20) not null,
+    food_truck_id int,
+    status        varchar(20) not null,
+    result_json   text,
+    error         varchar(500),
+    created_at    datetime(6),
+    started_at    datetime(6),
+    finished_at   datetime(6),
+    primary key (id)
+) engine = InnoDB;
+
+create index idx_ai_analysis_job_status on ai_analysis_job (status);
@@ -0,0 +1,15 @@
+-- Rolling per-truck review summary; each analysis only sends reviews newer than last_review_id.
+
+create table review_summary (
+    food_truck_id           int not null,
+    last_review_id          int,
+    review_count            int,
+    positive_comments       int,
+    negative_comments       int,
+    true_negative_reviews   int,
+    true_positive_reviews   int,
+    advice_based_on_reviews text,
+    most_complaint_point    varchar(255),
+    updated_at              datetime(6),
+    primary key (food_truck_id)
+) engine = InnoDB;
@@ -0,0 +1,6 @@
+-- Payments that could not be queued are started later by a sweep over PENDING orders; failures keep their reason.
+
+alter table orders
+    add column payment_error varchar(500);
+
+create index idx_orders_payment_status_ordered_at on orders (payment_status, ordered_at);
@@ -0,0 +1,83 @@
+package org.example.trucksy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.trucksy.Api.ApiException;
+import org.example.trucksy.DTOOut.DashBoardAnalyzerDtoOut;
+import org.example.trucksy.Repository.AiAnalysisJobRepository;
+import org.example.trucksy.Repository.OwnerRepository;
+import org.example.trucksy.Service.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.when;
+
+// The synchronous GET analyses share the AI job pool: the caller gets a future instead of running the model call,
+// a full pool rejects with the same message as a job submission, and a slow analysis answers within the timeout.
+@ExtendWith(MockitoExtension.class)
+public class AiAnalyzeNowTest {
+
+    @Mock AiAnalysisJobRepository aiAnalysisJobRepository;
+    @Mock OwnerRepository ownerRepository;
+    @Mock AiDashboardAnalyzerService aiDashboardAnalyzerService;
+    @Mock BestSpotAnalyzerService bestSpotAnalyzerService;
+    @Mock AiReviewAnalyzerService aiReviewAnalyzerService;
+
+    ThreadPoolTaskExecutor aiJobExecutor = new ThreadPoolTaskExecutor();
+    AiAnalysisJobService service;
+    CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        aiJobExecutor.setCorePoolSize(1);
+        aiJobExecutor.setMaxPoolSize(1);
+        aiJobExecutor.setQueueCapacity(0);
+        aiJobExecutor.initialize();
+        service = new AiAnalysisJobService(aiAnalysisJobRepository, ownerRepository, aiDashboardAnalyzerService,
+                bestSpotAnalyzerService, aiReviewAnalyzerService, aiJobExecutor, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "syncTimeout", Duration.ofMillis(300));
+
+        when(aiDashboardAnalyzerService.analyzeDashboardByOwnerId(5)).thenAnswer(inv -> {
+            release.await();
+            return new DashBoardAnalyzerDtoOut();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        aiJobExecutor.shutdown();
+    }
+
+    @Test
+    void fullPoolRejectsLikeAJobSubmission() {
+        CompletableFuture<Object> running = service.analyzeNow(5, AiResultCache.DASHBOARD, null);
+
+        ApiException e = Assertions.assertThrows(ApiException.class,
+                () -> service.analyzeNow(5, AiResultCache.DASHBOARD, null));
+        Assertions.assertTrue(e.getMessage().startsWith("Too many analyses in progress"));
+
+        release.countDown();
+        Assertions.assertInstanceOf(DashBoardAnalyzerDtoOut.class, running.join());
+    }
+
+    @Test
+    void slowAnalysisAnswersWithinTheTimeout() {
+        CompletableFuture<Object> running = service.analyzeNow(5, AiResultCache.DASHBOARD, null);
+
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> running.get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(ApiException.class, e.getCause());
+    }
+}
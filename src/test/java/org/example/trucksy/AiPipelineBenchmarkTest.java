@@ -0,0 +1,163 @@
+package org.example.trucksy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.trucksy.DTOOut.BestSpotAnalyzerDtoOut;
+import org.example.trucksy.DTOOut.DashBoardAnalyzerDtoOut;
+import org.example.trucksy.DTOOut.ReviewAnalyzerDtoOut;
+import org.example.trucksy.DTOOut.RollupTotals;
+import org.example.trucksy.Model.*;
+import org.example.trucksy.Repository.*;
+import org.example.trucksy.Service.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+// App-side cost of prompt build -> chat -> parse for the three analyzers, with the offline
+// backend at zero latency. Inputs change every iteration so AiResultCache always misses.
+@ExtendWith(MockitoExtension.class)
+public class AiPipelineBenchmarkTest {
+
+    private static final int WARMUP = 500;
+    private static final int ITERATIONS = 2000;
+    private static final long MAX_AVG_MICROS = 5_000;
+
+    @Mock DashboardRepository dashboardRepository;
+    @Mock FoodTruckRepository foodTruckRepository;
+    @Mock OwnerRepository ownerRepository;
+    @Mock OrderRepository orderRepository;
+    @Mock ReviewRepository reviewRepository;
+    @Mock ReviewSummaryRepository reviewSummaryRepository;
+    @Mock AiAnalysisResultRepository aiAnalysisResultRepository;
+    @Mock OrderRollupService orderRollupService;
+
+    AiService aiService = new LocalAiService(Duration.ZERO);
+    AiResultCache aiResultCache;
+    AiSingleFlight aiSingleFlight;
+    PromptBuilder promptBuilder;
+
+    Owner owner;
+    Dashboard dashboard;
+    FoodTruck truck;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        aiResultCache = new AiResultCache(aiAnalysisResultRepository, meterRegistry, Duration.ofHours(6), 100);
+        aiSingleFlight = new AiSingleFlight(meterRegistry);
+        promptBuilder = new PromptBuilder(meterRegistry, 4000);
+
+        owner = new Owner();
+        owner.setId(5);
+        owner.setSubscribed(true);
+        dashboard = new Dashboard();
+        dashboard.setTotalCompletedOrders(30);
+        dashboard.setTotalRevenue(1250.0);
+        truck = new FoodTruck();
+        truck.setId(9);
+        truck.setName("Shawarma House");
+        truck.setCategory("Arabic");
+        truck.setCity("Riyadh");
+        truck.setDistrict("Olaya");
+        truck.setOwner(owner);
+
+        when(ownerRepository.findOwnerById(5)).thenReturn(owner);
+        when(aiAnalysisResultRepository.findByFingerprintAndExpiresAtAfter(anyString(), any())).thenReturn(Optional.empty());
+        when(aiAnalysisResultRepository.findByFingerprint(anyString())).thenReturn(Optional.empty());
+        when(aiAnalysisResultRepository.save(any(AiAnalysisResult.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void dashboardPipeline() {
+        AiDashboardAnalyzerService service = new AiDashboardAnalyzerService(dashboardRepository, foodTruckRepository,
+                ownerRepository, aiService, aiResultCache, aiSingleFlight, promptBuilder, orderRollupService);
+        when(dashboardRepository.findDashboardById(5)).thenReturn(dashboard);
+        when(foodTruckRepository.findFoodTruckByOwnerId(5)).thenReturn(List.of(truck));
+        when(orderRollupService.lastDays(anyInt(), anyInt())).thenReturn(new RollupTotals(40L, 900.0, 35L, 810.0, 2L));
+        when(orderRollupService.peakOrdersLabel(5)).thenReturn("13:00-14:00");
+
+        assertFast("dashboard", i -> {
+            dashboard.setTotalOrders(100 + i);
+            DashBoardAnalyzerDtoOut result = service.analyzeDashboardByOwnerId(5);
+            Assertions.assertEquals(100 + i, result.getTotalOrders());
+            return result;
+        });
+    }
+
+    @Test
+    void bestSpotPipeline() {
+        BestSpotAnalyzerService service = new BestSpotAnalyzerService(dashboardRepository, orderRepository,
+                foodTruckRepository, ownerRepository, aiService, aiResultCache, aiSingleFlight, promptBuilder);
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Order order = new Order();
+            order.setStatus(i % 5 == 0 ? "CANCELLED" : "COMPLETED");
+            order.setTotalPrice(20.0 + i % 15);
+            orders.add(order);
+        }
+        when(dashboardRepository.findDashboardById(5)).thenReturn(dashboard);
+        when(foodTruckRepository.findFoodTruckByOwnerId(5)).thenReturn(List.of(truck));
+        when(orderRepository.findByOwnerIdOrderByOrderDateDesc(5)).thenReturn(orders);
+
+        assertFast("best spot", i -> {
+            dashboard.setTotalOrders(100 + i);
+            BestSpotAnalyzerDtoOut result = service.analyzeBestSpotByOwnerId(5);
+            Assertions.assertTrue(result.getRiyadhOnly());
+            return result;
+        });
+    }
+
+    @Test
+    void reviewPipeline() {
+        AiReviewAnalyzerService service = new AiReviewAnalyzerService(reviewRepository, reviewSummaryRepository,
+                foodTruckRepository, ownerRepository, aiService, aiResultCache, aiSingleFlight, promptBuilder, 100);
+        // ten new reviews arrive before every analysis; only those may reach the prompt
+        int[] latestReviewId = {0};
+        ReviewSummary[] stored = {null};
+        when(foodTruckRepository.findFoodTruckById(9)).thenReturn(truck);
+        when(reviewSummaryRepository.findById(9)).thenAnswer(inv -> Optional.ofNullable(stored[0]));
+        when(reviewSummaryRepository.save(any(ReviewSummary.class))).thenAnswer(inv -> stored[0] = inv.getArgument(0));
+        when(reviewRepository.findCommentedAfter(eq(9), anyInt(), any())).thenAnswer(inv -> {
+            List<Review> reviews = new ArrayList<>();
+            for (int id = (Integer) inv.getArgument(1) + 1; id <= latestReviewId[0]; id++) {
+                Review review = new Review();
+                review.setId(id);
+                review.setRating(1 + id % 5);
+                review.setComment("Comment number " + id + ", the wrap was " + (id % 2 == 0 ? "great" : "cold"));
+                reviews.add(review);
+            }
+            return reviews;
+        });
+
+        assertFast("reviews", i -> {
+            latestReviewId[0] += 10;
+            ReviewAnalyzerDtoOut result = service.analyzeReviewsByFoodTruckId(5, 9);
+            Assertions.assertEquals(4 * (i + 1), result.getPositiveComments());
+            Assertions.assertEquals(latestReviewId[0], stored[0].getLastReviewId());
+            return result;
+        });
+    }
+
+    private void assertFast(String name, IntFunction<Object> analysis) {
+        for (int i = 0; i < WARMUP; i++) analysis.apply(i);
+        long begin = System.nanoTime();
+        for (int i = WARMUP; i < WARMUP + ITERATIONS; i++) analysis.apply(i);
+        long avgMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin) / ITERATIONS;
+        Assertions.assertTrue(avgMicros < MAX_AVG_MICROS, name + " pipeline averaged " + avgMicros + "us per analysis");
+    }
+}
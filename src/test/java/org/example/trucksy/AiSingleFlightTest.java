@@ -0,0 +1,147 @@
+package org.example.trucksy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.trucksy.DTOOut.DashBoardAnalyzerDtoOut;
+import org.example.trucksy.DTOOut.RollupTotals;
+import org.example.trucksy.Model.AiAnalysisResult;
+import org.example.trucksy.Model.Dashboard;
+import org.example.trucksy.Model.FoodTruck;
+import org.example.trucksy.Model.Owner;
+import org.example.trucksy.Repository.AiAnalysisResultRepository;
+import org.example.trucksy.Repository.DashboardRepository;
+import org.example.trucksy.Repository.FoodTruckRepository;
+import org.example.trucksy.Repository.OwnerRepository;
+import org.example.trucksy.Service.AiDashboardAnalyzerService;
+import org.example.trucksy.Service.AiResultCache;
+import org.example.trucksy.Service.AiService;
+import org.example.trucksy.Service.AiSingleFlight;
+import org.example.trucksy.Service.OrderRollupService;
+import org.example.trucksy.Service.PromptBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AiSingleFlightTest {
+
+    private static final long MODEL_LATENCY_MS = 300;
+
+    @Mock DashboardRepository dashboardRepository;
+    @Mock FoodTruckRepository foodTruckRepository;
+    @Mock OwnerRepository ownerRepository;
+    @Mock AiService aiService;
+    @Mock AiAnalysisResultRepository aiAnalysisResultRepository;
+    @Mock OrderRollupService orderRollupService;
+
+    AiDashboardAnalyzerService aiDashboardAnalyzerService;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        aiDashboardAnalyzerService = new AiDashboardAnalyzerService(dashboardRepository, foodTruckRepository,
+                ownerRepository, aiService,
+                new AiResultCache(aiAnalysisResultRepository, meterRegistry, Duration.ofHours(6), 100),
+                new AiSingleFlight(meterRegistry), new PromptBuilder(meterRegistry, 4000), orderRollupService);
+    }
+
+    @Test
+    void parallelDashboardAnalysesCallTheModelOnce() throws Exception {
+        Owner owner = new Owner();
+        owner.setSubscribed(true);
+        Dashboard dashboard = new Dashboard();
+        dashboard.setTotalOrders(40);
+        FoodTruck truck = new FoodTruck();
+        truck.setName("Shawarma House");
+
+        when(ownerRepository.findOwnerById(5)).thenReturn(owner);
+        when(dashboardRepository.findDashboardById(5)).thenReturn(dashboard);
+        when(foodTruckRepository.findFoodTruckByOwnerId(5)).thenReturn(List.of(truck));
+        when(orderRollupService.lastDays(anyInt(), anyInt())).thenReturn(new RollupTotals(40L, 900.0, 35L, 810.0, 2L));
+        when(orderRollupService.peakOrdersLabel(5)).thenReturn("13:00-14:00");
+        when(aiAnalysisResultRepository.findByFingerprintAndExpiresAtAfter(anyString(), any())).thenReturn(Optional.empty());
+        when(aiAnalysisResultRepository.findByFingerprint(anyString())).thenReturn(Optional.empty());
+        when(aiAnalysisResultRepository.save(any(AiAnalysisResult.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(aiService.chat(anyString())).thenAnswer(inv -> {
+            Thread.sleep(MODEL_LATENCY_MS);
+            return """
+                    {"adviceBasedOnTheDashboard":"Open earlier on weekends","adviceOnItemDescription":"Add spice levels",
+                     "totalOrders":40,"totalCompletedOrders":35,"predictedOrders":12,"totalRevenue":900.00,
+                     "avgOrderValue":22.50,"grossMarginPct":45.00,"repeatCustomerRate":30.00,"conversionRate":87.50,
+                     "cancelRate":5.00,"avgPrepTimeSec":240,"queueLenAvg":2.00,"tipsTotal":0.00,
+                     "weatherImpactIndex":6.00,"eventImpactIndex":3.00,"confidence":70.00,"riyadhOnly":true,
+                     "analysisPeriodFrom":"2025-01-01","analysisPeriodTo":"2025-01-30"}
+                    """;
+        });
+
+        int callers = 20;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<DashBoardAnalyzerDtoOut>> futures = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return aiDashboardAnalyzerService.analyzeDashboardByOwnerId(5);
+            }));
+        }
+        start.countDown();
+        for (Future<DashBoardAnalyzerDtoOut> f : futures) {
+            Assertions.assertEquals(12, f.get(10, TimeUnit.SECONDS).getPredictedOrders());
+        }
+        pool.shutdown();
+
+        verify(aiService, times(1)).chat(anyString());
+    }
+
+    @Test
+    void failureIsSharedAndNextCallRetries() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AiSingleFlight singleFlight = new AiSingleFlight(meterRegistry);
+        IllegalStateException modelDown = new IllegalStateException("model down");
+        CountDownLatch leaderRunning = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<Object> leader = pool.submit(() -> singleFlight.run("DASHBOARD", 1, () -> {
+            leaderRunning.countDown();
+            try {
+                fail.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw modelDown;
+        }));
+        leaderRunning.await(5, TimeUnit.SECONDS);
+        Future<Object> joiner = pool.submit(() -> singleFlight.run("DASHBOARD", 1, () -> "joiner must not run"));
+
+        // the leader only fails once the second call has joined its flight
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("ai.singleflight", "kind", "DASHBOARD", "role", "joined").count() < 1) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "second call never joined the flight");
+            Thread.sleep(1);
+        }
+        fail.countDown();
+
+        ExecutionException leaderError = Assertions.assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException joinerError = Assertions.assertThrows(ExecutionException.class, () -> joiner.get(5, TimeUnit.SECONDS));
+        Assertions.assertSame(modelDown, leaderError.getCause());
+        Assertions.assertSame(modelDown, joinerError.getCause());
+        pool.shutdown();
+
+        // the failed flight is gone, so the next call runs the work again
+        Assertions.assertEquals("ok", singleFlight.run("DASHBOARD", 1, () -> "ok"));
+    }
+}
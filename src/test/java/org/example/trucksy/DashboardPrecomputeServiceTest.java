@@ -0,0 +1,59 @@
+package org.example.trucksy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.trucksy.Repository.DashboardRepository;
+import org.example.trucksy.Service.DashboardPrecomputeService;
+import org.example.trucksy.Service.DashboardService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+// The scheduler thread only starts a precompute run: it returns while refreshes are still running, and a run
+// that is due while the previous one is going is skipped instead of queued behind it.
+@ExtendWith(MockitoExtension.class)
+public class DashboardPrecomputeServiceTest {
+
+    @Mock DashboardRepository dashboardRepository;
+    @Mock DashboardService dashboardService;
+
+    @Test
+    void schedulerThreadIsNotHeldBySlowRefreshes() throws Exception {
+        SimpleAsyncTaskExecutor precomputeExecutor = new SimpleAsyncTaskExecutor("dashboard-precompute-");
+        precomputeExecutor.setVirtualThreads(true);
+        precomputeExecutor.setConcurrencyLimit(2);
+        SimpleAsyncTaskExecutor scheduledJobExecutor = new SimpleAsyncTaskExecutor("scheduled-job-");
+        scheduledJobExecutor.setVirtualThreads(true);
+        DashboardPrecomputeService service = new DashboardPrecomputeService(dashboardRepository, dashboardService,
+                precomputeExecutor, scheduledJobExecutor, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch refreshed = new CountDownLatch(4);
+        when(dashboardRepository.findAllIds()).thenReturn(List.of(1, 2, 3, 4));
+        doAnswer(inv -> {
+            release.await();
+            refreshed.countDown();
+            return null;
+        }).when(dashboardService).refreshDashboard(anyInt());
+
+        long begin = System.nanoTime();
+        service.precomputeAll();
+        service.precomputeAll();
+        Assertions.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin) < 1000);
+
+        release.countDown();
+        Assertions.assertTrue(refreshed.await(10, TimeUnit.SECONDS));
+        // the second call found the first run going and did nothing
+        verify(dashboardRepository, times(1)).findAllIds();
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.trucksy;
+
+import org.example.trucksy.Analytics.DoubleSeasonalForecaster;
+import org.example.trucksy.Analytics.ForecastBatch;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Synthetic fleet: every truck has a lunch and dinner peak, busier weekends and Poisson-like noise.
+// Checks that the forecaster recovers the pattern and that the whole fleet refits within seconds.
+public class DemandForecastBenchmarkTest {
+
+    private static final int TRUCKS = 2000;
+    private static final int HOURS = 9 * DoubleSeasonalForecaster.WEEK;
+
+    @Test
+    void forecastFollowsDailyAndWeeklySeasonality() {
+        Random random = new Random(7);
+        double[] history = synthetic(random, 1.0, HOURS + 24);
+        double[] train = Arrays.copyOf(history, HOURS);
+
+        double[] forecast = DoubleSeasonalForecaster.fit(train).forecast(24);
+
+        double expected = 0, predicted = 0;
+        for (int h = 0; h < 24; h++) {
+            expected += expectedRate(1.0, HOURS + h);
+            predicted += forecast[h];
+        }
+        Assertions.assertEquals(expected, predicted, expected * 0.15,
+                "next-day total off by more than 15%: expected " + expected + ", got " + predicted);
+    }
+
+    @Test
+    void fleetRefitsInSeconds() {
+        Random random = new Random(42);
+        Map<Integer, double[]> seriesByTruck = new HashMap<>();
+        for (int truckId = 1; truckId <= TRUCKS; truckId++) {
+            seriesByTruck.put(truckId, synthetic(random, 0.5 + random.nextDouble() * 2, HOURS));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            // warm-up so the measured run is not dominated by JIT compilation
+            ForecastBatch.refit(Map.of(1, seriesByTruck.get(1)), 24, pool);
+
+            long begin = System.nanoTime();
+            Map<Integer, Double> forecasts = ForecastBatch.refit(seriesByTruck, 24, pool);
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+            Assertions.assertEquals(TRUCKS, forecasts.size());
+            Assertions.assertTrue(forecasts.values().stream().allMatch(f -> f >= 0));
+            Assertions.assertTrue(elapsedMs < 10_000, "refit of " + TRUCKS + " trucks took " + elapsedMs + "ms");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // orders per hour: peaks at 13:00 and 20:00, closed at night, Thursday-Saturday 50% busier
+    private static double expectedRate(double scale, int t) {
+        int hour = t % 24;
+        int day = (t / 24) % 7; // 0 = Monday
+        double daily = hour < 10 ? 0 : 2 + 6 * Math.exp(-Math.pow(hour - 13, 2) / 2) + 8 * Math.exp(-Math.pow(hour - 20, 2) / 3);
+        double weekly = day >= 3 && day <= 5 ? 1.5 : 1.0;
+        return scale * daily * weekly;
+    }
+
+    private static double[] synthetic(Random random, double scale, int hours) {
+        double[] y = new double[hours];
+        for (int t = 0; t < hours; t++) {
+            double rate = expectedRate(scale, t);
+            y[t] = Math.max(0, Math.round(rate + random.nextGaussian() * Math.sqrt(rate)));
+        }
+        return y;
+    }
+}
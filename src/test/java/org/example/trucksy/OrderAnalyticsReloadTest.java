@@ -0,0 +1,91 @@
+package org.example.trucksy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.trucksy.Api.WarmingUpException;
+import org.example.trucksy.DTOOut.OrderFactRow;
+import org.example.trucksy.DTOOut.OwnerAnalyticsDtoOut;
+import org.example.trucksy.Event.OrderStatusChangedEvent;
+import org.example.trucksy.Repository.OrderRepository;
+import org.example.trucksy.Service.OrderAnalyticsService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+// The order facts are served only once loaded, follow orders written through other instances on the next reload,
+// and keep the events of this instance that arrive while a reload is reading its snapshot.
+@ExtendWith(MockitoExtension.class)
+public class OrderAnalyticsReloadTest {
+
+    private static final int OWNER = 7;
+    private static final int TRUCK = 70;
+
+    @Mock OrderRepository orderRepository;
+
+    OrderAnalyticsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new OrderAnalyticsService(orderRepository, new SyncTaskExecutor(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void analyticsAreUnavailableUntilTheFirstLoad() {
+        Assertions.assertThrows(WarmingUpException.class, () -> service.getOwnerAnalytics(OWNER, 30));
+
+        when(orderRepository.findAllOrderFacts()).thenReturn(List.of(fact(1, "PAID")));
+        service.load();
+
+        Assertions.assertEquals(1L, service.getOwnerAnalytics(OWNER, 30).statusMix().get("PAID"));
+    }
+
+    @Test
+    void reloadPicksUpOrdersChangedElsewhere() {
+        when(orderRepository.findAllOrderFacts())
+                .thenReturn(List.of(fact(1, "PAID")))
+                .thenReturn(List.of(fact(1, "CANCELLED"), fact(2, "COMPLETED")));
+        service.load();
+        service.reload();
+
+        OwnerAnalyticsDtoOut analytics = service.getOwnerAnalytics(OWNER, 30);
+        Assertions.assertEquals(0L, analytics.statusMix().get("PAID"));
+        Assertions.assertEquals(1L, analytics.statusMix().get("CANCELLED"));
+        Assertions.assertEquals(1L, analytics.statusMix().get("COMPLETED"));
+    }
+
+    @Test
+    void eventDuringReloadIsNotLostOrOverwrittenBySnapshot() {
+        when(orderRepository.findAllOrderFacts())
+                .thenReturn(List.of(fact(1, "PAID")))
+                .thenAnswer(inv -> {
+                    // committed after the snapshot below was read
+                    service.onOrderStatusChanged(event(1, "COMPLETED"));
+                    service.onOrderStatusChanged(event(3, "PLACED"));
+                    return List.of(fact(1, "PAID"));
+                });
+        service.load();
+        service.reload();
+
+        OwnerAnalyticsDtoOut analytics = service.getOwnerAnalytics(OWNER, 30);
+        Assertions.assertEquals(0L, analytics.statusMix().get("PAID"));
+        Assertions.assertEquals(1L, analytics.statusMix().get("COMPLETED"));
+        Assertions.assertEquals(1L, analytics.statusMix().get("PLACED"));
+    }
+
+    private static OrderFactRow fact(int orderId, String status) {
+        return new OrderFactRow(orderId, OWNER, TRUCK, LocalDate.now(), 50.0, status);
+    }
+
+    private static OrderStatusChangedEvent event(int orderId, String status) {
+        return new OrderStatusChangedEvent(orderId, 1, TRUCK, OWNER, null, status, 50.0,
+                LocalDate.now().atTime(12, 0), false);
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.trucksy;
+
+import org.example.trucksy.DTO.LiensDtoIn;
+import org.example.trucksy.Model.*;
+import org.example.trucksy.Repository.*;
+import org.example.trucksy.Service.OrderService;
+import org.example.trucksy.Service.OutboxService;
+import org.example.trucksy.Service.PaymentCallbackService;
+import org.example.trucksy.Service.PaymentGateway;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+// Order build latency for carts of 1-200 lines: the batched lookup + keyed merge in addOrder against the
+// previous per-line findItemById + linear scan, with every repository call costing a simulated round trip.
+@ExtendWith(MockitoExtension.class)
+public class OrderBuildBenchmarkTest {
+
+    private static final long ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final int[] CART_SIZES = {1, 10, 50, 200};
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 20;
+
+    @Mock ClientRepository clientRepository;
+    @Mock ItemRepository itemRepository;
+    @Mock FoodTruckRepository foodTruckRepository;
+    @Mock AuthRepository authRepository;
+    @Mock OrderRepository orderRepository;
+    @Mock BankCardRepository bankCardRepository;
+    @Mock PaymentCallbackRepository paymentCallbackRepository;
+    @Mock OutboxService outboxService;
+    @Mock ApplicationEventPublisher eventPublisher;
+    @Mock PaymentGateway paymentGateway;
+
+    OrderService orderService;
+    Map<Integer, Item> menu = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderService(clientRepository, itemRepository, foodTruckRepository, authRepository,
+                orderRepository, bankCardRepository, outboxService, eventPublisher, paymentGateway,
+                new PaymentCallbackService(paymentCallbackRepository));
+
+        FoodTruck truck = new FoodTruck();
+        truck.setId(3);
+        truck.setStatus("OPEN");
+        for (int id = 1; id <= 200; id++) {
+            Item item = new Item();
+            item.setId(id);
+            item.setName("Item " + id);
+            item.setPrice(5.0 + id % 7);
+            item.setIsAvailable(true);
+            item.setFoodTruck(truck);
+            menu.put(id, item);
+        }
+
+        BankCard card = new BankCard();
+        card.setAmount(1_000_000);
+        User user = new User();
+        user.setId(1);
+        user.setBankCard(card);
+        Client client = new Client();
+        client.setId(1);
+
+        when(foodTruckRepository.findFoodTruckById(3)).thenReturn(truck);
+        when(clientRepository.findClientById(1)).thenReturn(client);
+        when(authRepository.findUserById(1)).thenReturn(user);
+        when(itemRepository.findAllWithFoodTruckAndDiscountByIdIn(anyCollection())).thenAnswer(inv -> {
+            LockSupport.parkNanos(ROUND_TRIP_NANOS);
+            Collection<Integer> ids = inv.getArgument(0);
+            return ids.stream().map(menu::get).toList();
+        });
+        when(itemRepository.findItemById(anyInt())).thenAnswer(inv -> {
+            LockSupport.parkNanos(ROUND_TRIP_NANOS);
+            return menu.get((Integer) inv.getArgument(0));
+        });
+        when(orderRepository.save(any(Order.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void batchedBuildStaysFlatAsCartsGrow() {
+        for (int size : CART_SIZES) {
+            Set<LiensDtoIn> cart = new LinkedHashSet<>();
+            for (int id = 1; id <= size; id++) {
+                cart.add(new LiensDtoIn(id, 1 + id % 3));
+            }
+
+            long batchedMicros = averageMicros(() -> orderService.addOrder(1, 3, cart));
+            long legacyMicros = averageMicros(() -> legacyBuild(cart));
+
+            if (size >= 10) {
+                Assertions.assertTrue(batchedMicros * 3 < legacyMicros,
+                        "cart of " + size + ": batched " + batchedMicros + "us vs per-line " + legacyMicros + "us");
+            }
+        }
+        // one item query per order, whatever the cart size
+        verify(itemRepository, times(CART_SIZES.length * (WARMUP + ITERATIONS))).findAllWithFoodTruckAndDiscountByIdIn(anyCollection());
+    }
+
+    // the order build before the batched lookup: one findItemById per line, duplicates found by scanning the lines
+    private double legacyBuild(Set<LiensDtoIn> cart) {
+        Set<OrderLine> lines = new LinkedHashSet<>();
+        double totalPrice = 0.0;
+        for (LiensDtoIn lien : cart) {
+            Item item = itemRepository.findItemById(lien.getItemId());
+            OrderLine existing = lines.stream()
+                    .filter(ol -> ol.getItem().getId().equals(item.getId()))
+                    .findFirst()
+                    .orElse(null);
+            if (existing == null) {
+                OrderLine line = new OrderLine();
+                line.setItem(item);
+                line.setQuantity(lien.getQuantity());
+                line.setUnitPriceAtPurchase(item.getPrice());
+                lines.add(line);
+            } else {
+                existing.setQuantity(existing.getQuantity() + lien.getQuantity());
+            }
+            totalPrice += item.getPrice() * lien.getQuantity();
+        }
+        return totalPrice;
+    }
+
+    private static long averageMicros(Runnable build) {
+        for (int i = 0; i < WARMUP; i++) build.run();
+        long begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) build.run();
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin) / ITERATIONS;
+    }
+}
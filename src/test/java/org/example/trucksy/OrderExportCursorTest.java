@@ -0,0 +1,106 @@
+package org.example.trucksy;
+
+import jakarta.persistence.EntityManager;
+import org.example.trucksy.DTOOut.OrderExportRow;
+import org.example.trucksy.Model.*;
+import org.example.trucksy.Repository.OrderRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// OrderRepository.streamExportRowsByOwner against MySQL: with HINT_FETCH_SIZE = Integer.MIN_VALUE Connector/J
+// reads the result row by row off the socket, and while such a result set is open the connection refuses any
+// other statement. A buffered result set would be fully read before the first row and leave the connection free.
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class OrderExportCursorTest {
+
+    private static final int ORDERS = 50;
+
+    @Autowired EntityManager entityManager;
+    @Autowired OrderRepository orderRepository;
+    // shares the test transaction's connection with the repository
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    Integer ownerId;
+    List<Integer> orderIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Client client = new Client();
+        client.setUser(user("cursor_client", "966533333333", "CLIENT"));
+        entityManager.persist(client);
+
+        Owner owner = new Owner();
+        owner.setSubscribed(false);
+        owner.setUser(user("cursor_owner", "966544444444", "OWNER"));
+        entityManager.persist(owner);
+        ownerId = owner.getId();
+
+        FoodTruck truck = new FoodTruck();
+        truck.setOwner(owner);
+        truck.setName("Cursor Truck");
+        truck.setCategory("Burgers");
+        truck.setStatus("OPEN");
+        entityManager.persist(truck);
+
+        for (int o = 0; o < ORDERS; o++) {
+            Order order = new Order();
+            order.setStatus("COMPLETED");
+            order.setPaymentStatus("PAID");
+            order.setTotalPrice(20.0 + o);
+            order.setClient(client);
+            order.setFoodTruck(truck);
+            entityManager.persist(order);
+            orderIds.add(order.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void exportRowsComeFromAnOpenStreamingResultSet() {
+        List<Integer> exported = new ArrayList<>();
+        try (Stream<OrderExportRow> rows = orderRepository.streamExportRowsByOwner(ownerId)) {
+            Iterator<OrderExportRow> iterator = rows.iterator();
+            exported.add(iterator.next().orderId());
+
+            // the rest of the result is still on the wire
+            DataAccessException busy = Assertions.assertThrows(DataAccessException.class,
+                    () -> jdbcTemplate.queryForObject("select 1", Integer.class));
+            String cause = NestedExceptionUtils.getMostSpecificCause(busy).getMessage();
+            Assertions.assertTrue(cause.contains("Streaming result set"), cause);
+
+            iterator.forEachRemaining(row -> exported.add(row.orderId()));
+        }
+
+        Assertions.assertEquals(orderIds, exported);
+        // closing the stream released the connection
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("select 1", Integer.class));
+    }
+
+    private User user(String username, String phoneNumber, String role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("pass123");
+        user.setPhoneNumber(phoneNumber);
+        user.setRole(role);
+        entityManager.persist(user);
+        return user;
+    }
+}
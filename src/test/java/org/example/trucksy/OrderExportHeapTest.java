@@ -0,0 +1,73 @@
+package org.example.trucksy;
+
+import org.example.trucksy.DTOOut.OrderExportRow;
+import org.example.trucksy.Repository.OrderRepository;
+import org.example.trucksy.Service.OrderExportService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.mockito.Mockito.when;
+
+// A million-order export through OrderExportService in a JVM of its own with -Xmx64m (surefire execution
+// export-heap in pom.xml): the rows alone are several hundred MB, so collecting or buffering them anywhere on the
+// way to the response fails with OutOfMemoryError instead of passing on a generous heap.
+@ExtendWith(MockitoExtension.class)
+public class OrderExportHeapTest {
+
+    private static final int ORDERS = 1_000_000;
+
+    @Mock OrderRepository orderRepository;
+    @Mock PlatformTransactionManager transactionManager;
+
+    @Test
+    void millionOrdersExportInSmallHeap() {
+        Assertions.assertTrue(Runtime.getRuntime().maxMemory() <= 128L * 1024 * 1024,
+                "run through the export-heap surefire execution, not with the default heap");
+        OrderExportService orderExportService = new OrderExportService(orderRepository, transactionManager);
+
+        // rows are generated lazily, like the JDBC cursor
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<OrderExportRow> rows = Stream.iterate(1, i -> i <= ORDERS, i -> i + 1)
+                .map(OrderExportHeapTest::row)
+                .onClose(() -> closed.set(true));
+        when(orderRepository.streamExportRowsByOwner(7)).thenReturn(rows);
+
+        CountingOutputStream out = new CountingOutputStream();
+        long written = orderExportService.exportOwnerOrders(7, OrderExportService.JSONL, out);
+
+        Assertions.assertEquals(ORDERS, written);
+        Assertions.assertTrue(closed.get(), "cursor was not closed");
+        Assertions.assertTrue(out.bytes > ORDERS * 100L, "only " + out.bytes + " bytes written");
+    }
+
+    private static OrderExportRow row(int id) {
+        return new OrderExportRow(id, LocalDate.of(2025, 1, 1).plusDays(id % 365),
+                LocalDateTime.of(2025, 1, 1, 12, 0).plusMinutes(id), 1 + id % 50, "Truck " + (id % 50),
+                "client" + (id % 1000), "COMPLETED", "PAID", 10.0 + id % 90);
+    }
+
+    // discards the export, only counts its size
+    private static class CountingOutputStream extends OutputStream {
+        long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
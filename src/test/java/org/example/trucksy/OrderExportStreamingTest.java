@@ -0,0 +1,45 @@
+package org.example.trucksy;
+
+import org.example.trucksy.DTOOut.OrderExportRow;
+import org.example.trucksy.Repository.OrderRepository;
+import org.example.trucksy.Service.OrderExportService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+// the heap bound of a large export is checked by OrderExportHeapTest, the JDBC cursor by OrderExportCursorTest
+@ExtendWith(MockitoExtension.class)
+public class OrderExportStreamingTest {
+
+    @Mock OrderRepository orderRepository;
+    @Mock PlatformTransactionManager transactionManager;
+
+    OrderExportService orderExportService;
+
+    @BeforeEach
+    void setUp() {
+        orderExportService = new OrderExportService(orderRepository, transactionManager);
+    }
+
+    @Test
+    void csvQuotesValuesWithSeparators() {
+        OrderExportRow row = new OrderExportRow(1, LocalDate.of(2025, 1, 2), null, 3,
+                "Burgers, Fries & \"More\"", "sara", "PAID", "PAID", 12.5);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        orderExportService.write(Stream.of(row), OrderExportService.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertEquals("1,2025-01-02,,3,\"Burgers, Fries & \"\"More\"\"\",sara,PAID,PAID,12.5", lines[1]);
+    }
+}
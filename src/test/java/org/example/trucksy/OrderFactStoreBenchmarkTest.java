@@ -0,0 +1,71 @@
+package org.example.trucksy;
+
+import org.example.trucksy.Analytics.OrderFactStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// One million synthetic orders over 1000 owners: checks the owner scan against a naive
+// computation (every aggregate limited to the window, revenue to paid orders)
+// and that a scan stays in the low milliseconds once warmed up.
+public class OrderFactStoreBenchmarkTest {
+
+    private static final int ORDERS = 1_000_000;
+    private static final int OWNERS = 1000;
+    private static final int TRUCKS_PER_OWNER = 3;
+    private static final int TODAY = 20_000;
+    private static final int DAYS = 90;
+
+    @Test
+    void ownerScanOverMillionOrders() {
+        Random random = new Random(11);
+        OrderFactStore store = new OrderFactStore(16);
+
+        int[] owner = new int[ORDERS], truck = new int[ORDERS], day = new int[ORDERS];
+        long[] amount = new long[ORDERS];
+        byte[] status = new byte[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            owner[i] = 1 + random.nextInt(OWNERS);
+            truck[i] = owner[i] * TRUCKS_PER_OWNER + random.nextInt(TRUCKS_PER_OWNER);
+            day[i] = TODAY - random.nextInt(365);
+            amount[i] = 500 + random.nextInt(20_000);
+            status[i] = (byte) random.nextInt(OrderFactStore.STATUSES.length);
+            store.upsert(i + 1, owner[i], truck[i], day[i], amount[i], status[i]);
+        }
+        // a later status change only touches the status column
+        store.upsert(1, owner[0], truck[0], TODAY, 999_999, (byte) 3);
+        status[0] = 3;
+        Assertions.assertEquals(ORDERS, store.size());
+
+        int ownerId = owner[0];
+        long expectedRevenue = 0, expectedCompleted = 0, expectedRecentOrders = 0;
+        for (int i = 0; i < ORDERS; i++) {
+            if (owner[i] != ownerId || day[i] <= TODAY - DAYS) continue;
+            // PAID, READY, COMPLETED
+            if (status[i] >= 1 && status[i] <= 3) expectedRevenue += amount[i];
+            if (status[i] == 3) expectedCompleted++;
+            expectedRecentOrders++;
+        }
+
+        OrderFactStore.OwnerAggregate aggregate = store.aggregate(ownerId, TODAY - DAYS + 1, TODAY);
+        long revenue = aggregate.revenueByTruck().values().stream().mapToLong(Long::longValue).sum();
+        long recentOrders = 0;
+        for (long n : aggregate.dailyOrders()) recentOrders += n;
+
+        Assertions.assertEquals(expectedRevenue, revenue);
+        Assertions.assertEquals(expectedCompleted, aggregate.statusCounts()[3]);
+        Assertions.assertEquals(expectedRecentOrders, recentOrders);
+        Assertions.assertTrue(aggregate.revenueByTruck().size() <= TRUCKS_PER_OWNER);
+
+        // warm-up, then the average of repeated scans over different owners
+        for (int i = 0; i < 50; i++) store.aggregate(1 + i % OWNERS, TODAY - DAYS + 1, TODAY);
+        int runs = 200;
+        long begin = System.nanoTime();
+        for (int i = 0; i < runs; i++) store.aggregate(1 + i % OWNERS, TODAY - DAYS + 1, TODAY);
+        long avgMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin) / runs;
+
+        Assertions.assertTrue(avgMicros < 20_000, "average owner scan took " + avgMicros + "us");
+    }
+}
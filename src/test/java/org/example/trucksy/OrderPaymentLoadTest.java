@@ -0,0 +1,151 @@
+package org.example.trucksy;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.trucksy.Controller.MoyasarStubController;
+import org.example.trucksy.Event.OrderStatusChangedEvent;
+import org.example.trucksy.Model.BankCard;
+import org.example.trucksy.Model.User;
+import org.example.trucksy.Repository.AuthRepository;
+import org.example.trucksy.Repository.OrderRepository;
+import org.example.trucksy.Service.OrderPaymentService;
+import org.example.trucksy.Service.PaymentGateway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockMvcClientHttpRequestFactory;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Lunch rush against the Moyasar stub with injected latency: orders are placed by request threads that share a
+// small connection pool with the payment work, while the real PaymentGateway calls MoyasarStubController on the
+// payment executor. Placing an order must not wait for a connection however slow the gateway is.
+@ExtendWith(MockitoExtension.class)
+public class OrderPaymentLoadTest {
+
+    private static final Duration GATEWAY_LATENCY = Duration.ofMillis(200);
+    private static final int ORDERS = 300;
+    private static final int REQUEST_THREADS = 50;
+    private static final int POOL_SIZE = 10;
+    private static final int PAYMENT_CONCURRENCY = 32;
+    private static final long MAX_CONNECTION_WAIT_MILLIS = 50;
+
+    @Mock AuthRepository authRepository;
+    @Mock OrderRepository orderRepository;
+    @Mock ApplicationEventPublisher eventPublisher;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ThreadPoolTaskExecutor paymentExecutor = new ThreadPoolTaskExecutor();
+    OrderPaymentService orderPaymentService;
+
+    // stands in for the JDBC pool: every repository call holds a connection for the length of a short statement
+    Semaphore connections = new Semaphore(POOL_SIZE, true);
+    AtomicLong maxPlacementWaitNanos = new AtomicLong();
+    CountDownLatch handlesRecorded = new CountDownLatch(ORDERS);
+
+    @BeforeEach
+    void setUp() {
+        MoyasarStubController stub = new MoyasarStubController();
+        ReflectionTestUtils.setField(stub, "latency", GATEWAY_LATENCY);
+        RestTemplate restTemplate = new RestTemplate(
+                new MockMvcClientHttpRequestFactory(MockMvcBuilders.standaloneSetup(stub).build()));
+        PaymentGateway paymentGateway = new PaymentGateway(restTemplate, meterRegistry);
+        ReflectionTestUtils.setField(paymentGateway, "apiKey", "sk_test");
+        ReflectionTestUtils.setField(paymentGateway, "apiUrl", "http://localhost/stub/moyasar/v1/payments");
+        ReflectionTestUtils.setField(paymentGateway, "callbackBaseUrl", "http://localhost");
+
+        // same shape as AsyncConfig.paymentExecutor
+        paymentExecutor.setThreadNamePrefix("payment-");
+        paymentExecutor.setCorePoolSize(PAYMENT_CONCURRENCY);
+        paymentExecutor.setMaxPoolSize(PAYMENT_CONCURRENCY);
+        paymentExecutor.setQueueCapacity(500);
+        paymentExecutor.initialize();
+        orderPaymentService = new OrderPaymentService(authRepository, orderRepository, paymentGateway,
+                eventPublisher, paymentExecutor, meterRegistry);
+
+        BankCard card = new BankCard();
+        card.setName("Sara");
+        card.setNumber("4111111111111111");
+        card.setCvc("123");
+        card.setMonth("12");
+        card.setYear("30");
+        User user = new User();
+        user.setBankCard(card);
+
+        when(orderRepository.claimPaymentStart(anyInt(), anyString(), any())).thenAnswer(inv -> statement(() -> 1));
+        when(authRepository.findUserById(1)).thenAnswer(inv -> statement(() -> user));
+        when(orderRepository.updatePaymentHandle(anyInt(), anyString(), eq("INITIATED"), anyString())).thenAnswer(inv -> statement(() -> {
+            handlesRecorded.countDown();
+            return 1;
+        }));
+    }
+
+    @AfterEach
+    void tearDown() {
+        paymentExecutor.shutdown();
+    }
+
+    @Test
+    void slowGatewayDoesNotStarveOrderPlacement() throws Exception {
+        ExecutorService requests = Executors.newFixedThreadPool(REQUEST_THREADS);
+        try {
+            CountDownLatch placed = new CountDownLatch(ORDERS);
+            for (int i = 1; i <= ORDERS; i++) {
+                int orderId = i;
+                requests.execute(() -> {
+                    // phase 1: the PLACED order's insert, then its after-commit hand-off to the payment executor
+                    long begin = System.nanoTime();
+                    statement(() -> null);
+                    maxPlacementWaitNanos.accumulateAndGet(System.nanoTime() - begin, Math::max);
+                    orderPaymentService.onOrderStatusChanged(new OrderStatusChangedEvent(
+                            orderId, 1, 3, 5, null, "PLACED", 25.0, LocalDateTime.now(), false));
+                    placed.countDown();
+                });
+            }
+            Assertions.assertTrue(placed.await(30, TimeUnit.SECONDS));
+            Assertions.assertTrue(handlesRecorded.await(60, TimeUnit.SECONDS), "payments left: " + handlesRecorded.getCount());
+        } finally {
+            requests.shutdownNow();
+        }
+
+        Timer gateway = meterRegistry.get("moyasar.client.requests").tag("operation", "create").timer();
+        Assertions.assertEquals(ORDERS, gateway.count());
+        Assertions.assertTrue(gateway.mean(TimeUnit.MILLISECONDS) >= GATEWAY_LATENCY.toMillis(),
+                "latency not injected: " + gateway.mean(TimeUnit.MILLISECONDS) + "ms");
+        long maxWaitMillis = TimeUnit.NANOSECONDS.toMillis(maxPlacementWaitNanos.get());
+        Assertions.assertTrue(maxWaitMillis < MAX_CONNECTION_WAIT_MILLIS,
+                "order placement waited " + maxWaitMillis + "ms for a connection with the gateway at " + GATEWAY_LATENCY);
+        verify(orderRepository, never()).markPaymentFailed(anyInt(), any());
+        verify(orderRepository, never()).markPaymentUnknown(anyInt(), any());
+    }
+
+    private <T> T statement(Supplier<T> work) {
+        connections.acquireUninterruptibly();
+        try {
+            // one short statement
+            TimeUnit.MILLISECONDS.sleep(1);
+            return work.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            connections.release();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.trucksy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.trucksy.DTOOut.PendingPaymentRow;
+import org.example.trucksy.Event.OrderStatusChangedEvent;
+import org.example.trucksy.Model.BankCard;
+import org.example.trucksy.Model.User;
+import org.example.trucksy.Repository.AuthRepository;
+import org.example.trucksy.Repository.OrderRepository;
+import org.example.trucksy.Service.OrderPaymentService;
+import org.example.trucksy.Service.PaymentGateway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// A payment start without an answer may still have charged the client: the order stays PLACED and the sweep
+// asks Moyasar for the payment by its given_id instead of cancelling it.
+@ExtendWith(MockitoExtension.class)
+public class OrderPaymentReconcileTest {
+
+    private static final LocalDateTime ORDERED_AT = LocalDateTime.of(2026, 3, 14, 12, 0);
+
+    @Mock AuthRepository authRepository;
+    @Mock OrderRepository orderRepository;
+    @Mock PaymentGateway paymentGateway;
+    @Mock ApplicationEventPublisher eventPublisher;
+
+    OrderPaymentService orderPaymentService;
+    User user;
+
+    @BeforeEach
+    void setUp() {
+        // payment tasks run inline so the test sees their outcome
+        orderPaymentService = new OrderPaymentService(authRepository, orderRepository, paymentGateway,
+                eventPublisher, Runnable::run, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(orderPaymentService, "sweepMinAge", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(orderPaymentService, "stallAfter", Duration.ofMinutes(2));
+
+        user = new User();
+        user.setBankCard(new BankCard());
+    }
+
+    @Test
+    void timeoutLeavesTheOrderPlacedForReconciliation() {
+        when(orderRepository.claimPaymentStart(eq(10), anyString(), any())).thenReturn(1);
+        when(authRepository.findUserById(1)).thenReturn(user);
+        when(paymentGateway.createPayment(any(), eq(2500L), eq("/api/v1/order/callback/10"), anyString()))
+                .thenThrow(new ResourceAccessException("Read timed out"));
+
+        orderPaymentService.onOrderStatusChanged(placed());
+
+        verify(orderRepository).markPaymentUnknown(10, "Read timed out");
+        verify(orderRepository, never()).markPaymentFailed(anyInt(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void declinedCardStillCancelsTheOrder() {
+        when(orderRepository.claimPaymentStart(eq(10), anyString(), any())).thenReturn(1);
+        when(authRepository.findUserById(1)).thenReturn(user);
+        when(paymentGateway.createPayment(any(), anyLong(), anyString(), anyString()))
+                .thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+        when(orderRepository.markPaymentFailed(eq(10), any())).thenReturn(1);
+
+        orderPaymentService.onOrderStatusChanged(placed());
+
+        verify(orderRepository, never()).markPaymentUnknown(anyInt(), any());
+        verify(eventPublisher).publishEvent(any(OrderStatusChangedEvent.class));
+    }
+
+    @Test
+    void stalledStartRecordsThePaymentMoyasarCreated() throws Exception {
+        stalled();
+        when(paymentGateway.fetchPayment("given-1")).thenReturn(Optional.of(new ObjectMapper().readTree("""
+                {"id":"given-1","status":"paid","source":{"transaction_url":"https://pay/3ds"}}
+                """)));
+
+        orderPaymentService.startDeferredPayments();
+
+        verify(orderRepository).updatePaymentHandle(10, "given-1", "PAID", "https://pay/3ds");
+        verify(paymentGateway, never()).createPayment(any(), anyLong(), anyString(), anyString());
+    }
+
+    @Test
+    void stalledStartNeverCreatedIsSentAgainWithTheSameGivenId() throws Exception {
+        stalled();
+        when(paymentGateway.fetchPayment("given-1")).thenReturn(Optional.empty());
+        when(authRepository.findUserById(1)).thenReturn(user);
+        when(paymentGateway.createPayment(any(), eq(2500L), anyString(), eq("given-1"))).thenReturn(new ObjectMapper().readTree("""
+                {"id":"given-1","status":"initiated","source":{"transaction_url":"https://pay/3ds"}}
+                """));
+
+        orderPaymentService.startDeferredPayments();
+
+        verify(orderRepository).updatePaymentHandle(10, "given-1", "INITIATED", "https://pay/3ds");
+    }
+
+    @Test
+    void stalledStartClaimedElsewhereIsLeftAlone() {
+        when(orderRepository.findStalledPayments(any(), any())).thenReturn(List.of(stalledRow()));
+        when(orderRepository.claimPaymentReconcile(eq(10), any(), any())).thenReturn(0);
+
+        orderPaymentService.startDeferredPayments();
+
+        verifyNoInteractions(paymentGateway);
+    }
+
+    private void stalled() {
+        when(orderRepository.findStalledPayments(any(), any())).thenReturn(List.of(stalledRow()));
+        when(orderRepository.claimPaymentReconcile(eq(10), any(), any())).thenReturn(1);
+    }
+
+    private static PendingPaymentRow stalledRow() {
+        return new PendingPaymentRow(10, 1, 3, 5, 25.0, ORDERED_AT, "given-1");
+    }
+
+    private static OrderStatusChangedEvent placed() {
+        return new OrderStatusChangedEvent(10, 1, 3, 5, null, "PLACED", 25.0, ORDERED_AT, false);
+    }
+}
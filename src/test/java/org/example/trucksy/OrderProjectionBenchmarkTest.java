@@ -0,0 +1,193 @@
+package org.example.trucksy;
+
+import jakarta.persistence.EntityManager;
+import org.example.trucksy.DTO.FoodTruckSummaryDtoOut;
+import org.example.trucksy.DTO.OrderDtoOut;
+import org.example.trucksy.DTO.OrderLineDtoOut;
+import org.example.trucksy.Model.*;
+import org.example.trucksy.Repository.ClientRepository;
+import org.example.trucksy.Repository.OrderRepository;
+import org.example.trucksy.Service.OrderService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Client order history page against seeded MySQL data: the two projection queries + flat mapping in OrderService
+// against the previous fetch-joined entity load (Order, FoodTruck, OrderLine, Item and everything they eagerly
+// pull in) copied into the same DTOs. The persistence context is cleared before every load so both paths go to
+// the database.
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class OrderProjectionBenchmarkTest {
+
+    private static final int ORDERS = 200;
+    private static final int PAGE_SIZE = 50;
+    private static final int LINES_PER_ORDER = 5;
+    private static final int WARMUP = 10;
+    private static final int ITERATIONS = 30;
+
+    @Autowired EntityManager entityManager;
+    @Autowired ClientRepository clientRepository;
+    @Autowired OrderRepository orderRepository;
+
+    OrderService orderService;
+    Integer clientId;
+
+    @BeforeEach
+    void setUp() {
+        // getOrdersForClientDto only reads the client and order repositories
+        orderService = new OrderService(clientRepository, null, null, null, orderRepository, null, null, null, null, null);
+
+        Client client = new Client();
+        client.setUser(user("bench_client", "966511111111", "CLIENT"));
+        entityManager.persist(client);
+        clientId = client.getId();
+
+        Owner owner = new Owner();
+        owner.setSubscribed(false);
+        owner.setUser(user("bench_owner", "966522222222", "OWNER"));
+        entityManager.persist(owner);
+
+        List<FoodTruck> trucks = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        for (int t = 0; t < 5; t++) {
+            FoodTruck truck = new FoodTruck();
+            truck.setOwner(owner);
+            truck.setName("Truck " + t);
+            truck.setCategory("Burgers");
+            truck.setStatus("OPEN");
+            entityManager.persist(truck);
+            trucks.add(truck);
+            for (int i = 0; i < LINES_PER_ORDER; i++) {
+                Item item = new Item();
+                item.setName("Item " + t + "-" + i);
+                item.setPrice(8.5);
+                item.setDescription("seeded item");
+                item.setIsAvailable(true);
+                item.setIsDiscounted(false);
+                item.setFoodTruck(truck);
+                entityManager.persist(item);
+                items.add(item);
+            }
+        }
+
+        for (int o = 0; o < ORDERS; o++) {
+            int t = o % trucks.size();
+            Order order = new Order();
+            order.setStatus("COMPLETED");
+            order.setPaymentStatus("PAID");
+            order.setTotalPrice(42.5);
+            order.setClient(client);
+            order.setFoodTruck(trucks.get(t));
+            entityManager.persist(order);
+            for (int l = 0; l < LINES_PER_ORDER; l++) {
+                OrderLine line = new OrderLine();
+                line.setOrder(order);
+                line.setItem(items.get(t * LINES_PER_ORDER + l));
+                line.setQuantity(l + 1);
+                line.setUnitPriceAtPurchase(8.5);
+                entityManager.persist(line);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void projectionPageAllocatesLessThanEntityGraph() {
+        List<Integer> pageIds = orderRepository.findIdPageByClient(clientId, Integer.MAX_VALUE,
+                PageRequest.of(0, PAGE_SIZE));
+        // same page, same content
+        Assertions.assertEquals(entityLoad(pageIds), projectionLoad());
+
+        Measurement projection = measure(this::projectionLoad);
+        Measurement entityGraph = measure(() -> entityLoad(pageIds));
+
+        String report = "projection " + projection + " vs entity graph " + entityGraph;
+        Assertions.assertTrue(projection.bytes < entityGraph.bytes, report);
+        Assertions.assertTrue(projection.micros < entityGraph.micros, report);
+    }
+
+    private List<OrderDtoOut> projectionLoad() {
+        entityManager.clear();
+        return orderService.getOrdersForClientDto(clientId, null, PAGE_SIZE).getOrders();
+    }
+
+    // the page load before the projections: one fetch-join query hydrating the whole graph, then an entity -> DTO copy
+    private List<OrderDtoOut> entityLoad(List<Integer> pageIds) {
+        entityManager.clear();
+        List<Order> orders = entityManager.createQuery("""
+                        select distinct o from Order o
+                        join fetch o.foodTruck
+                        left join fetch o.lines l
+                        left join fetch l.item
+                        where o.id in :ids
+                        """, Order.class)
+                .setParameter("ids", pageIds)
+                .getResultList();
+
+        List<OrderDtoOut> result = new ArrayList<>();
+        for (Order order : orders.stream().sorted(Comparator.comparing(Order::getId).reversed()).toList()) {
+            OrderDtoOut dto = new OrderDtoOut();
+            dto.setId(order.getId());
+            dto.setStatus(order.getStatus());
+            dto.setTotalPrice(order.getTotalPrice());
+            FoodTruck truck = order.getFoodTruck();
+            dto.setFoodTruck(new FoodTruckSummaryDtoOut(truck.getId(), truck.getName(), truck.getCategory(), truck.getStatus()));
+            List<OrderLine> lines = new ArrayList<>(order.getLines());
+            lines.sort(Comparator.comparing(OrderLine::getId));
+            List<OrderLineDtoOut> lineDtos = new ArrayList<>();
+            for (OrderLine ol : lines) {
+                lineDtos.add(new OrderLineDtoOut(ol.getItem().getId(), ol.getItem().getName(),
+                        ol.getQuantity(), ol.getUnitPriceAtPurchase()));
+            }
+            dto.setLines(lineDtos);
+            result.add(dto);
+        }
+        return result;
+    }
+
+    private User user(String username, String phoneNumber, String role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("pass123");
+        user.setPhoneNumber(phoneNumber);
+        user.setRole(role);
+        entityManager.persist(user);
+        return user;
+    }
+
+    private record Measurement(long micros, long bytes) {
+        @Override
+        public String toString() {
+            return micros + "us / " + bytes + "B per page";
+        }
+    }
+
+    private static Measurement measure(Supplier<?> load) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP; i++) load.get();
+        long bytesBefore = threads.getThreadAllocatedBytes(thread);
+        long begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) load.get();
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin) / ITERATIONS;
+        long bytes = (threads.getThreadAllocatedBytes(thread) - bytesBefore) / ITERATIONS;
+        return new Measurement(micros, bytes);
+    }
+}
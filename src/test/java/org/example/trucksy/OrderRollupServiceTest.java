@@ -0,0 +1,69 @@
+package org.example.trucksy;
+
+import org.example.trucksy.Event.OrderStatusChangedEvent;
+import org.example.trucksy.Repository.OrderRollupRepository;
+import org.example.trucksy.Service.OrderRollupService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Every transition is counted in the buckets of the order's orderedAt, like the V11 rebuild from orders.ordered_at.
+@ExtendWith(MockitoExtension.class)
+public class OrderRollupServiceTest {
+
+    private static final LocalDateTime ORDERED_AT = LocalDateTime.of(2026, 3, 14, 23, 40, 12);
+
+    @Mock OrderRollupRepository orderRollupRepository;
+    @InjectMocks OrderRollupService orderRollupService;
+
+    @Test
+    void placementCountsGrossRevenueInTheOrderBuckets() {
+        orderRollupService.onOrderStatusChanged(event(null, "PLACED"));
+
+        verify(orderRollupRepository).addToBucket(3, "HOUR", LocalDateTime.of(2026, 3, 14, 23, 0), 1, 30.0, 0, 0.0, 0);
+        verify(orderRollupRepository).addToBucket(3, "DAY", LocalDateTime.of(2026, 3, 14, 0, 0), 1, 30.0, 0, 0.0, 0);
+    }
+
+    @Test
+    void completionAfterMidnightStillLandsInTheOrderBuckets() {
+        orderRollupService.onOrderStatusChanged(event("READY", "COMPLETED"));
+
+        verify(orderRollupRepository).addToBucket(3, "HOUR", LocalDateTime.of(2026, 3, 14, 23, 0), 0, 0.0, 1, 30.0, 0);
+        verify(orderRollupRepository).addToBucket(3, "DAY", LocalDateTime.of(2026, 3, 14, 0, 0), 0, 0.0, 1, 30.0, 0);
+    }
+
+    @Test
+    void cancellationAddsNoRevenue() {
+        orderRollupService.onOrderStatusChanged(event("PLACED", "CANCELLED"));
+
+        verify(orderRollupRepository, times(2)).addToBucket(eq(3), anyString(), any(), eq(0), eq(0.0), eq(0), eq(0.0), eq(1));
+    }
+
+    @Test
+    void dayOnlyOrderIsKeptOutOfTheHourBuckets() {
+        orderRollupService.onOrderStatusChanged(new OrderStatusChangedEvent(
+                10, 1, 3, 5, "READY", "COMPLETED", 30.0, LocalDateTime.of(2024, 6, 2, 0, 0), true));
+
+        verify(orderRollupRepository).addToBucket(3, "DAY", LocalDateTime.of(2024, 6, 2, 0, 0), 0, 0.0, 1, 30.0, 0);
+        verify(orderRollupRepository, never()).addToBucket(anyInt(), eq("HOUR"), any(), anyInt(), anyDouble(), anyInt(), anyDouble(), anyInt());
+    }
+
+    @Test
+    void paidAndReadyAreNotCounted() {
+        orderRollupService.onOrderStatusChanged(event("PLACED", "PAID"));
+        orderRollupService.onOrderStatusChanged(event("PAID", "READY"));
+
+        verifyNoInteractions(orderRollupRepository);
+    }
+
+    private static OrderStatusChangedEvent event(String previousStatus, String status) {
+        return new OrderStatusChangedEvent(10, 1, 3, 5, previousStatus, status, 30.0, ORDERED_AT, false);
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.trucksy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.trucksy.Model.OutboxMessage;
+import org.example.trucksy.Repository.OutboxMessageRepository;
+import org.example.trucksy.Service.OrderInvoiceService;
+import org.example.trucksy.Service.OutboxService;
+import org.example.trucksy.Service.WhatsAppService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// A full outbox queue must not leave a claimed message IN_FLIGHT until its lease expires or abort the poll:
+// the rejected claim is released, the rest of the batch is not claimed, and the metrics are still refreshed.
+@ExtendWith(MockitoExtension.class)
+public class OutboxBackpressureTest {
+
+    @Mock OutboxMessageRepository outboxMessageRepository;
+    @Mock WhatsAppService whatsAppService;
+    @Mock OrderInvoiceService orderInvoiceService;
+
+    @Test
+    void rejectedDeliveryReleasesItsClaimAndStopsTheBatch() {
+        List<Runnable> accepted = new ArrayList<>();
+        // room for one delivery only
+        TaskExecutor outboxExecutor = task -> {
+            if (!accepted.isEmpty()) throw new TaskRejectedException("outbox queue full");
+            accepted.add(task);
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OutboxService outboxService = new OutboxService(outboxMessageRepository, whatsAppService, orderInvoiceService,
+                outboxExecutor, meterRegistry);
+        ReflectionTestUtils.setField(outboxService, "lease", Duration.ofMinutes(2));
+
+        LocalDateTime due = LocalDateTime.now().minusSeconds(30);
+        List<OutboxMessage> batch = List.of(message(1L, due), message(2L, due), message(3L, due));
+        when(outboxMessageRepository.findTop50ByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(eq("PENDING"), any()))
+                .thenReturn(batch);
+        when(outboxMessageRepository.claim(anyLong(), any())).thenReturn(1);
+
+        outboxService.drain();
+
+        Assertions.assertEquals(1, accepted.size());
+        verify(outboxMessageRepository).release(2L, due);
+        verify(outboxMessageRepository, never()).claim(eq(3L), any());
+        verify(outboxMessageRepository).findOldestUndeliveredCreatedAt(OutboxService.WHATSAPP);
+        Assertions.assertEquals(1.0, meterRegistry.counter("outbox.dispatched",
+                "channel", OutboxService.WHATSAPP, "outcome", "deferred").count());
+    }
+
+    private static OutboxMessage message(Long id, LocalDateTime nextAttemptAt) {
+        OutboxMessage message = new OutboxMessage();
+        message.setId(id);
+        message.setChannel(OutboxService.WHATSAPP);
+        message.setPayload("{\"to\":\"966500000000\",\"body\":\"hi\"}");
+        message.setStatus("PENDING");
+        message.setAttempts(0);
+        message.setNextAttemptAt(nextAttemptAt);
+        return message;
+    }
+}
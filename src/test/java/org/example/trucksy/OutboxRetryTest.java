@@ -0,0 +1,103 @@
+package org.example.trucksy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.example.trucksy.Model.Client;
+import org.example.trucksy.Model.Order;
+import org.example.trucksy.Model.OutboxMessage;
+import org.example.trucksy.Model.User;
+import org.example.trucksy.Repository.OrderRepository;
+import org.example.trucksy.Repository.OutboxMessageRepository;
+import org.example.trucksy.Service.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// An invoice mail that fails to send must stay in the outbox for another attempt, not be marked SENT.
+@ExtendWith(MockitoExtension.class)
+public class OutboxRetryTest {
+
+    @Mock OutboxMessageRepository outboxMessageRepository;
+    @Mock OrderRepository orderRepository;
+    @Mock PdfService pdfService;
+    @Mock JavaMailSender mailSender;
+    @Mock WhatsAppService whatsAppService;
+
+    OutboxService outboxService;
+    OutboxMessage message;
+
+    @BeforeEach
+    void setUp() {
+        OrderInvoiceService orderInvoiceService = new OrderInvoiceService(orderRepository, pdfService, new PdfMailService(mailSender));
+        // deliveries run inline so the test sees the outcome of drain()
+        outboxService = new OutboxService(outboxMessageRepository, whatsAppService, orderInvoiceService,
+                Runnable::run, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(outboxService, "maxAttempts", 8);
+        ReflectionTestUtils.setField(outboxService, "initialBackoff", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(outboxService, "lease", Duration.ofMinutes(2));
+
+        User user = new User();
+        user.setUsername("sara");
+        user.setEmail("sara@example.com");
+        Client client = new Client();
+        client.setUser(user);
+        Order order = new Order();
+        order.setId(10);
+        order.setStatus("PAID");
+        order.setTotalPrice(25.0);
+        order.setClient(client);
+
+        message = new OutboxMessage();
+        message.setId(1L);
+        message.setChannel(OutboxService.ORDER_INVOICE);
+        message.setPayload("{\"orderId\":10,\"paymentId\":\"pay_1\",\"message\":\"APPROVED\"}");
+        message.setStatus("PENDING");
+        message.setAttempts(0);
+
+        when(outboxMessageRepository.findTop50ByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(eq("PENDING"), any()))
+                .thenReturn(List.of(message));
+        when(outboxMessageRepository.claim(eq(1L), any())).thenReturn(1);
+        when(orderRepository.findById(10)).thenReturn(Optional.of(order));
+        when(pdfService.generateInvoicePdf(anyMap())).thenReturn(new byte[]{'%', 'P', 'D', 'F'});
+        when(mailSender.createMimeMessage()).thenReturn(new MimeMessage((Session) null));
+    }
+
+    @Test
+    void failedInvoiceMailStaysPendingWithAnotherAttempt() {
+        doThrow(new MailSendException("SMTP unavailable")).when(mailSender).send(any(MimeMessage.class));
+        LocalDateTime before = LocalDateTime.now();
+
+        outboxService.drain();
+
+        verify(outboxMessageRepository).save(message);
+        Assertions.assertEquals("PENDING", message.getStatus());
+        Assertions.assertEquals(1, message.getAttempts());
+        Assertions.assertTrue(message.getLastError().contains("SMTP unavailable"));
+        Assertions.assertTrue(message.getNextAttemptAt().isAfter(before.plusSeconds(4)));
+        Assertions.assertNull(message.getSentAt());
+    }
+
+    @Test
+    void sentInvoiceMailIsMarkedSent() {
+        outboxService.drain();
+
+        verify(mailSender).send(any(MimeMessage.class));
+        Assertions.assertEquals("SENT", message.getStatus());
+        Assertions.assertEquals(0, message.getAttempts());
+    }
+}
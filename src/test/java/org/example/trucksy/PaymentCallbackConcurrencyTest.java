@@ -0,0 +1,186 @@
+package org.example.trucksy;
+
+import org.example.trucksy.Api.CallbackInProgressException;
+import org.example.trucksy.Model.Client;
+import org.example.trucksy.Model.Order;
+import org.example.trucksy.Model.PaymentCallback;
+import org.example.trucksy.Repository.*;
+import org.example.trucksy.Service.OrderService;
+import org.example.trucksy.Service.OutboxService;
+import org.example.trucksy.Service.PaymentCallbackService;
+import org.example.trucksy.Service.PaymentGateway;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PaymentCallbackConcurrencyTest {
+
+    private static final long MOYASAR_LATENCY_MS = 300;
+
+    @Mock ClientRepository clientRepository;
+    @Mock ItemRepository itemRepository;
+    @Mock FoodTruckRepository foodTruckRepository;
+    @Mock AuthRepository authRepository;
+    @Mock OrderRepository orderRepository;
+    @Mock BankCardRepository bankCardRepository;
+    @Mock PaymentCallbackRepository paymentCallbackRepository;
+    @Mock OutboxService outboxService;
+    @Mock ApplicationEventPublisher eventPublisher;
+    @Mock PaymentGateway paymentGateway;
+
+    OrderService orderService;
+    Order order;
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderService(clientRepository, itemRepository, foodTruckRepository, authRepository,
+                orderRepository, bankCardRepository, outboxService, eventPublisher, paymentGateway,
+                new PaymentCallbackService(paymentCallbackRepository));
+
+        Client client = new Client();
+        client.setId(1);
+
+        order = new Order();
+        order.setId(10);
+        order.setStatus("PLACED");
+        order.setTotalPrice(25.0);
+        order.setClient(client);
+    }
+
+    @Test
+    void hundredIdenticalCallbacksDeductOnce() throws Exception {
+        when(paymentCallbackRepository.existsByTransactionId("pay_1")).thenReturn(false);
+        when(paymentCallbackRepository.saveAndFlush(any(PaymentCallback.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(orderRepository.findById(10)).thenReturn(Optional.of(order));
+        when(paymentGateway.getPayment("pay_1")).thenAnswer(inv -> {
+            Thread.sleep(MOYASAR_LATENCY_MS);
+            return "{\"status\":\"paid\",\"amount\":2500}";
+        });
+        when(bankCardRepository.deductAmount(1, 25.0)).thenReturn(1);
+
+        int callers = 100;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Long> latenciesMs = Collections.synchronizedList(new ArrayList<>());
+        List<Future<Boolean>> futures = new ArrayList<>();
+
+        for (int i = 0; i < callers; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                long begin = System.nanoTime();
+                try {
+                    callbackInTransaction("pay_1");
+                    return true;
+                } catch (CallbackInProgressException e) {
+                    return false;
+                } finally {
+                    latenciesMs.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+                }
+            }));
+        }
+        start.countDown();
+        int answered = 0;
+        for (Future<Boolean> f : futures) {
+            if (f.get(10, TimeUnit.SECONDS)) answered++;
+        }
+        pool.shutdown();
+
+        verify(bankCardRepository, times(1)).deductAmount(1, 25.0);
+        verify(paymentGateway, times(1)).getPayment("pay_1");
+        verify(paymentCallbackRepository, times(1)).saveAndFlush(any(PaymentCallback.class));
+        Assertions.assertEquals("PAID", order.getStatus());
+        // duplicates racing the winner are told to retry (409), only those arriving after it finished get 200
+        Assertions.assertTrue(answered >= 1 && answered < callers, answered + " callbacks answered with 200");
+
+        // only the winner waits on Moyasar; duplicates return without an outbound call
+        List<Long> sorted = new ArrayList<>(latenciesMs);
+        Collections.sort(sorted);
+        Assertions.assertEquals(callers, sorted.size());
+        long p99OfDuplicates = sorted.get(sorted.size() - 2);
+        Assertions.assertTrue(p99OfDuplicates < MOYASAR_LATENCY_MS, "duplicate p99 was " + p99OfDuplicates + "ms");
+    }
+
+    @Test
+    void duplicateOfRolledBackDeliveryIsNotAcknowledged() throws Exception {
+        when(paymentCallbackRepository.existsByTransactionId("pay_3")).thenReturn(false);
+        when(paymentCallbackRepository.saveAndFlush(any(PaymentCallback.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(orderRepository.findById(10)).thenReturn(Optional.of(order));
+        CountDownLatch firstAtMoyasar = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        AtomicInteger moyasarCalls = new AtomicInteger();
+        when(paymentGateway.getPayment("pay_3")).thenAnswer(inv -> {
+            if (moyasarCalls.incrementAndGet() == 1) {
+                firstAtMoyasar.countDown();
+                releaseFirst.await();
+                throw new IllegalStateException("Moyasar timed out");
+            }
+            return "{\"status\":\"paid\",\"amount\":2500}";
+        });
+        when(bankCardRepository.deductAmount(1, 25.0)).thenReturn(1);
+
+        // first delivery runs in a transaction that rolls back
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<?> first = pool.submit(() -> {
+            Assertions.assertThrows(IllegalStateException.class, () -> callbackInTransaction("pay_3"));
+            return null;
+        });
+        Assertions.assertTrue(firstAtMoyasar.await(5, TimeUnit.SECONDS));
+
+        // a duplicate arriving meanwhile must not be acknowledged, or Moyasar would stop retrying
+        Assertions.assertThrows(CallbackInProgressException.class,
+                () -> orderService.handlePaymentCallback(10, "pay_3", "paid", "APPROVED"));
+
+        releaseFirst.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        pool.shutdown();
+        verify(bankCardRepository, never()).deductAmount(anyInt(), anyDouble());
+
+        // Moyasar's retry after the rollback processes the payment
+        callbackInTransaction("pay_3");
+        verify(bankCardRepository, times(1)).deductAmount(1, 25.0);
+        Assertions.assertEquals("PAID", order.getStatus());
+    }
+
+    @Test
+    void alreadyRecordedTransactionSkipsMoyasar() {
+        when(paymentCallbackRepository.existsByTransactionId("pay_2")).thenReturn(true);
+
+        orderService.handlePaymentCallback(10, "pay_2", "paid", "APPROVED");
+
+        verifyNoInteractions(paymentGateway, bankCardRepository, orderRepository);
+    }
+
+    // stands in for the @Transactional boundary of handlePaymentCallback: commit on success, roll back on an exception
+    private void callbackInTransaction(String transactionId) {
+        TransactionSynchronizationManager.initSynchronization();
+        int status = TransactionSynchronization.STATUS_ROLLED_BACK;
+        try {
+            orderService.handlePaymentCallback(10, transactionId, "paid", "APPROVED");
+            status = TransactionSynchronization.STATUS_COMMITTED;
+        } finally {
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCompletion(status);
+            }
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
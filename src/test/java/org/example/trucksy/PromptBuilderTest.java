@@ -0,0 +1,105 @@
+package org.example.trucksy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.trucksy.Model.Review;
+import org.example.trucksy.Service.PromptBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class PromptBuilderTest {
+
+    private static final Pattern LINE = Pattern.compile("Review \\d+(?: \\(x(\\d+)\\))?: Rating=(\\d)");
+    private static final String TEMPLATE = "Analyze these reviews and answer in JSON.\n%s\n";
+
+    @Test
+    void foldsNearIdenticalComments() {
+        PromptBuilder builder = new PromptBuilder(new SimpleMeterRegistry(), 4000);
+        List<Review> reviews = List.of(
+                review(5, "Great shawarma!"),
+                review(5, "great  shawarma"),
+                review(5, "GREAT SHAWARMA."),
+                review(2, "Great shawarma"),
+                review(1, "Cold fries"));
+
+        String prompt = builder.render("reviews", TEMPLATE, builder.reviews(reviews));
+
+        Assertions.assertTrue(prompt.contains("Rating histogram (5 reviews): 5 stars: 3, 4 stars: 0, 3 stars: 0, 2 stars: 1, 1 star: 1"));
+        Assertions.assertTrue(prompt.contains("(x3): Rating=5"));
+        Assertions.assertEquals(3, weights(prompt)[0]);
+        Assertions.assertEquals(3, weights(prompt)[1]);
+    }
+
+    @Test
+    void stratifiesLargeVolumesWithinTheCeiling() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PromptBuilder builder = new PromptBuilder(meterRegistry, 1500);
+        List<Review> reviews = new ArrayList<>();
+        int[] perRating = new int[6];
+        for (int i = 0; i < 2000; i++) {
+            int rating = i % 10 < 6 ? 5 : 1 + i % 4; // mostly five stars, a tail of the rest
+            perRating[rating]++;
+            reviews.add(review(rating, "Visit " + i + ": the wrap was " + (i % 3 == 0 ? "great" : "a bit cold") + " and the queue was long"));
+        }
+
+        String prompt = builder.render("reviews", TEMPLATE, builder.reviews(reviews));
+
+        Assertions.assertTrue(PromptBuilder.estimateTokens(prompt) <= 1500, "prompt over the ceiling");
+        int[] counted = new int[6];
+        Matcher m = LINE.matcher(prompt);
+        while (m.find()) {
+            counted[Integer.parseInt(m.group(2))] += m.group(1) == null ? 1 : Integer.parseInt(m.group(1));
+        }
+        // every rating is represented and the weights still add up to the real counts
+        for (int rating = 1; rating <= 5; rating++) {
+            Assertions.assertEquals(perRating[rating], counted[rating], "rating " + rating);
+        }
+        Assertions.assertEquals(1.0, meterRegistry.counter("ai.prompt.truncated", "kind", "reviews").count());
+    }
+
+    @Test
+    void trimsListsThatDoNotFit() {
+        PromptBuilder builder = new PromptBuilder(new SimpleMeterRegistry(), 200);
+        List<String> trucks = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            trucks.add("Truck " + i + ": Name=\"Truck number " + i + "\", Category=\"Burgers\"");
+        }
+
+        String prompt = builder.render("dashboard", "Trucks:\n%s", builder.lines(trucks, "trucks"));
+
+        Assertions.assertTrue(prompt.contains("Truck 1: "));
+        Assertions.assertTrue(prompt.matches("(?s).*\\.\\.\\. \\d+ more trucks not shown\\n"));
+        Assertions.assertTrue(PromptBuilder.estimateTokens(prompt) <= 200);
+    }
+
+    @Test
+    void estimatesTokensRoughlyLikeBpe() {
+        Assertions.assertEquals(0, PromptBuilder.estimateTokens(""));
+        Assertions.assertEquals(2, PromptBuilder.estimateTokens("hello world"));
+        Assertions.assertEquals(4, PromptBuilder.estimateTokens("Rating=5,"));
+        Assertions.assertEquals(5, PromptBuilder.estimateTokens("شاورما لذيذ"));
+    }
+
+    private static int[] weights(String prompt) {
+        // {lines, weight of the five-star line}
+        int lines = 0;
+        int fiveStar = 0;
+        Matcher m = LINE.matcher(prompt);
+        while (m.find()) {
+            lines++;
+            if (m.group(2).equals("5")) fiveStar = m.group(1) == null ? 1 : Integer.parseInt(m.group(1));
+        }
+        return new int[]{lines, fiveStar};
+    }
+
+    private static Review review(int rating, String comment) {
+        Review review = new Review();
+        review.setRating(rating);
+        review.setComment(comment);
+        return review;
+    }
+}
@@ -0,0 +1,217 @@
+package org.example.trucksy;
+
+import org.example.trucksy.Repository.*;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Calls the hot repository methods against a seeded, ANALYZEd copy of the Flyway schema, captures the SQL Hibernate
+// generates for them and EXPLAINs it with the same arguments: the plan must pick the index meant for the query and
+// must not be a full scan. ANALYZE TABLE commits implicitly, so the seed is committed and removed afterwards.
+@ExtendWith(SpringExtension.class)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=org.example.trucksy.QueryPlanTest$SqlCapture")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class QueryPlanTest {
+
+    private static final int TRUCKS = 1000;
+    private static final int CATEGORIES = 50;
+    private static final int ORDERS = 20_000;
+    private static final int ITEMS = 10_000;
+    private static final int REVIEWS = 20_000;
+    private static final int OUTBOX_MESSAGES = 20_000;
+
+    // 0..99999, for server-side inserts without a round trip per row
+    private static final String DIGITS = "(select 0 d union all select 1 union all select 2 union all select 3 union all select 4"
+            + " union all select 5 union all select 6 union all select 7 union all select 8 union all select 9)";
+    private static final String SEQ = "(select a.d + 10 * b.d + 100 * c.d + 1000 * e.d + 10000 * f.d as n from "
+            + DIGITS + " a, " + DIGITS + " b, " + DIGITS + " c, " + DIGITS + " e, " + DIGITS + " f) seq";
+
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired OrderRepository orderRepository;
+    @Autowired ReviewRepository reviewRepository;
+    @Autowired ItemRepository itemRepository;
+    @Autowired FoodTruckRepository foodTruckRepository;
+    @Autowired OutboxMessageRepository outboxMessageRepository;
+
+    long maxUserId, maxTruckId, maxOrderId, maxOrderLineId, maxItemId, maxReviewId, maxOutboxId;
+    int truckId, clientId, ownerId;
+    List<Integer> orderIds;
+
+    @BeforeAll
+    void seed() {
+        maxUserId = maxId("users");
+        maxTruckId = maxId("food_truck");
+        maxOrderId = maxId("orders");
+        maxOrderLineId = maxId("order_line");
+        maxItemId = maxId("item");
+        maxReviewId = maxId("review");
+        maxOutboxId = maxId("outbox_message");
+
+        ownerId = user("OWNER");
+        jdbcTemplate.update("insert into owner (user_id, subscribed) values (?, false)", ownerId);
+        clientId = user("CLIENT");
+        jdbcTemplate.update("insert into client (user_id) values (?)", clientId);
+
+        jdbcTemplate.update("insert into food_truck (name, category, status, owner_user_id)"
+                + " select concat('qp truck ', seq.n), concat('category ', seq.n % " + CATEGORIES + "), 'OPEN', ?"
+                + " from " + SEQ + " where seq.n < " + TRUCKS, ownerId);
+        String trucks = "(select id, row_number() over (order by id) - 1 as k from food_truck where id > " + maxTruckId + ") t";
+        truckId = jdbcTemplate.queryForObject("select min(id) from food_truck where id > ?", Integer.class, maxTruckId);
+
+        // the status changes every TRUCKS orders, so each truck has orders in every status
+        jdbcTemplate.update("insert into orders (status, order_date, ordered_at, ordered_at_estimated, total_price,"
+                + " client_user_id, food_truck_id, payment_status)"
+                + " select elt(1 + (seq.n div " + TRUCKS + ") % 5, 'PLACED', 'PAID', 'READY', 'COMPLETED', 'CANCELLED'),"
+                + " current_date - interval (seq.n % 90) day, now() - interval seq.n minute, false, 20 + seq.n % 30, ?, t.id, 'PAID'"
+                + " from " + SEQ + " join " + trucks + " on t.k = seq.n % " + TRUCKS + " where seq.n < " + ORDERS, clientId);
+        jdbcTemplate.update("insert into order_line (quantity, unit_price_at_purchase, order_id)"
+                + " select 1 + l.k, 10, o.id from orders o,"
+                + " (select 0 k union all select 1 union all select 2) l where o.id > ?", maxOrderId);
+        orderIds = jdbcTemplate.queryForList("select id from orders where id > ? order by id limit 3", Integer.class, maxOrderId);
+
+        jdbcTemplate.update("insert into item (name, price, description, is_available, is_discounted, food_truck_id)"
+                + " select concat('qp item ', seq.n), 5 + seq.n % 40, 'seeded item', seq.n % 4 <> 0, false, t.id"
+                + " from " + SEQ + " join " + trucks + " on t.k = seq.n % " + TRUCKS + " where seq.n < " + ITEMS);
+        jdbcTemplate.update("insert into review (rating, comment, created_date, client_user_id, food_truck_id)"
+                + " select 1 + seq.n % 5, 'seeded review', current_date, ?, t.id"
+                + " from " + SEQ + " join " + trucks + " on t.k = seq.n % " + TRUCKS + " where seq.n < " + REVIEWS, clientId);
+        // a drained outbox: one message in a hundred still PENDING
+        jdbcTemplate.update("insert into outbox_message (channel, payload, status, attempts, next_attempt_at, created_at)"
+                + " select 'WHATSAPP', '{}', if(seq.n % 100 = 0, 'PENDING', 'SENT'), 0, now() - interval seq.n second, now()"
+                + " from " + SEQ + " where seq.n < " + OUTBOX_MESSAGES);
+
+        jdbcTemplate.execute("analyze table orders, order_line, item, review, food_truck, outbox_message");
+    }
+
+    @AfterAll
+    void removeSeed() {
+        jdbcTemplate.update("delete from order_line where id > ?", maxOrderLineId);
+        jdbcTemplate.update("delete from orders where id > ?", maxOrderId);
+        jdbcTemplate.update("delete from review where id > ?", maxReviewId);
+        jdbcTemplate.update("delete from item where id > ?", maxItemId);
+        jdbcTemplate.update("delete from outbox_message where id > ?", maxOutboxId);
+        jdbcTemplate.update("delete from food_truck where id > ?", maxTruckId);
+        jdbcTemplate.update("delete from client where user_id > ?", maxUserId);
+        jdbcTemplate.update("delete from owner where user_id > ?", maxUserId);
+        jdbcTemplate.update("delete from users where id > ?", maxUserId);
+    }
+
+    @Test
+    void statusQueueByFoodTruckUsesTruckStatusDateIndex() {
+        SqlCapture.clear();
+        orderRepository.findStatusQueueByFoodTruck(truckId, "PLACED", PageRequest.of(0, 20));
+        assertUsesIndex("orders", "idx_orders_truck_status_date", truckId, "PLACED", 20);
+    }
+
+    @Test
+    void orderLinesOfPageUseOrderIndex() {
+        SqlCapture.clear();
+        orderRepository.findOrderLinesByOrderIdIn(orderIds);
+        assertUsesIndex("order_line", "idx_order_line_order", orderIds.toArray());
+    }
+
+    @Test
+    void reviewsOfFoodTruckUseFoodTruckIndex() {
+        SqlCapture.clear();
+        reviewRepository.findByFoodTruck_Id(truckId);
+        assertUsesIndex("review", "idx_review_food_truck", truckId);
+    }
+
+    @Test
+    void itemPriceFilterUsesTruckAvailablePriceIndex() {
+        SqlCapture.clear();
+        itemRepository.findByFoodTruck_IdAndIsAvailableTrueAndPriceBetween(truckId, 10.0, 30.0);
+        assertUsesIndex("item", "idx_item_truck_available_price", truckId, 10.0, 30.0);
+    }
+
+    @Test
+    void trucksByCategoryUseCategoryIndex() {
+        SqlCapture.clear();
+        foodTruckRepository.findFoodTruckByCategory("category 7");
+        assertUsesIndex("food_truck", "idx_food_truck_category", "category 7");
+    }
+
+    @Test
+    void outboxPollUsesStatusNextAttemptIndex() {
+        LocalDateTime now = LocalDateTime.now();
+        SqlCapture.clear();
+        outboxMessageRepository.findTop50ByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc("PENDING", now);
+        assertUsesIndex("outbox_message", "idx_outbox_status_next_attempt", "PENDING", now, 50);
+    }
+
+    // EXPLAINs the first statement the repository call sent (the query itself; eager loads and page counts follow it)
+    // with the call's arguments, in placeholder order
+    private void assertUsesIndex(String table, String expectedIndex, Object... args) {
+        List<String> statements = SqlCapture.statements();
+        assertFalse(statements.isEmpty(), "no SQL captured");
+        String sql = statements.get(0);
+        assertEquals(args.length, sql.chars().filter(c -> c == '?').count(), "arguments do not match the placeholders of " + sql);
+
+        Matcher alias = Pattern.compile("\\b(?:from|join)\\s+" + table + "\\s+(\\w+)").matcher(sql);
+        assertTrue(alias.find(), "no " + table + " in " + sql);
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("explain " + sql, args);
+
+        Map<String, Object> row = plan.stream()
+                .filter(r -> alias.group(1).equals(r.get("table")))
+                .findFirst()
+                .orElse(null);
+        assertNotNull(row, "no plan row for " + table + " in " + plan);
+        assertEquals(expectedIndex, row.get("key"), "plan was " + row + " for " + sql);
+        assertNotEquals("ALL", row.get("type"), "full scan: " + row + " for " + sql);
+    }
+
+    private long maxId(String table) {
+        return jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+    }
+
+    private int user(String role) {
+        String suffix = UUID.randomUUID().toString().replace("-", "").substring(0, 8);
+        long phone = 966500000000L + Math.floorMod(suffix.hashCode(), 100_000_000);
+        jdbcTemplate.update("insert into users (username, password, email, phone_number, role) values (?, ?, ?, ?, ?)",
+                "qp_" + suffix, "pass123", "qp_" + suffix + "@example.com", String.valueOf(phone), role);
+        return jdbcTemplate.queryForObject("select id from users where username = ?", Integer.class, "qp_" + suffix);
+    }
+
+    // registered through hibernate.session_factory.statement_inspector: records the SQL, changes nothing
+    public static class SqlCapture implements StatementInspector {
+
+        private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        static void clear() {
+            STATEMENTS.clear();
+        }
+
+        static List<String> statements() {
+            return List.copyOf(STATEMENTS);
+        }
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.trucksy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.trucksy.Api.ApiException;
+import org.example.trucksy.DTOOut.ReviewAnalyzerDtoOut;
+import org.example.trucksy.Model.*;
+import org.example.trucksy.Repository.*;
+import org.example.trucksy.Service.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Two instances folding the same batch into a truck's review summary: the loser's save hits the version check
+// and it starts over from the winner's summary instead of adding the batch a second time.
+@ExtendWith(MockitoExtension.class)
+public class ReviewSummaryConflictTest {
+
+    @Mock ReviewRepository reviewRepository;
+    @Mock ReviewSummaryRepository reviewSummaryRepository;
+    @Mock FoodTruckRepository foodTruckRepository;
+    @Mock OwnerRepository ownerRepository;
+    @Mock AiService aiService;
+    @Mock AiAnalysisResultRepository aiAnalysisResultRepository;
+
+    AiReviewAnalyzerService service;
+    ReviewSummary[] stored = {null};
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        service = new AiReviewAnalyzerService(reviewRepository, reviewSummaryRepository, foodTruckRepository,
+                ownerRepository, aiService,
+                new AiResultCache(aiAnalysisResultRepository, meterRegistry, Duration.ofHours(6), 100),
+                new AiSingleFlight(meterRegistry), new PromptBuilder(meterRegistry, 4000), 100);
+
+        Owner owner = new Owner();
+        owner.setId(5);
+        owner.setSubscribed(true);
+        FoodTruck truck = new FoodTruck();
+        truck.setId(9);
+        truck.setName("Shawarma House");
+        truck.setOwner(owner);
+
+        when(ownerRepository.findOwnerById(5)).thenReturn(owner);
+        when(foodTruckRepository.findFoodTruckById(9)).thenReturn(truck);
+        when(aiAnalysisResultRepository.findByFingerprintAndExpiresAtAfter(anyString(), any())).thenReturn(Optional.empty());
+        when(aiAnalysisResultRepository.findByFingerprint(anyString())).thenReturn(Optional.empty());
+        when(aiAnalysisResultRepository.save(any(AiAnalysisResult.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(aiService.chat(anyString())).thenReturn("""
+                {"positive_comments":6,"negative_comments":4,"true_negative_reviews":3,"true_positive_reviews":5,
+                 "advice_based_on_reviews":"Keep the wraps warm","most_complaint_point":"Cold food"}
+                """);
+        when(reviewSummaryRepository.findById(9)).thenAnswer(inv -> Optional.ofNullable(stored[0]));
+        when(reviewRepository.findCommentedAfter(eq(9), anyInt(), any())).thenAnswer(inv -> {
+            List<Review> reviews = new ArrayList<>();
+            for (int id = (Integer) inv.getArgument(1) + 1; id <= 10; id++) {
+                Review review = new Review();
+                review.setId(id);
+                review.setRating(1 + id % 5);
+                review.setComment("Comment " + id);
+                reviews.add(review);
+            }
+            return reviews;
+        });
+    }
+
+    @Test
+    void losingSaveStartsOverFromTheWinningSummary() {
+        when(reviewSummaryRepository.save(any(ReviewSummary.class))).thenAnswer(inv -> {
+            // the other instance committed the same ten reviews first
+            stored[0] = new ReviewSummary(9, 10, 10, 6, 4, 3, 5, "Keep the wraps warm", "Cold food", null, 1L);
+            throw new ObjectOptimisticLockingFailureException(ReviewSummary.class, 9);
+        });
+
+        ReviewAnalyzerDtoOut result = service.analyzeReviewsByFoodTruckId(5, 9);
+
+        Assertions.assertEquals(6, result.getPositiveComments());
+        Assertions.assertEquals(5, result.getTruePositiveReviews());
+        Assertions.assertEquals(10, stored[0].getReviewCount());
+        // the retry found nothing newer than the winner's high-water mark, so nothing was saved again
+        verify(reviewSummaryRepository, times(1)).save(any(ReviewSummary.class));
+        verify(aiService, times(1)).chat(anyString());
+    }
+
+    @Test
+    void persistentConflictGivesUpWithARetryableMessage() {
+        when(reviewSummaryRepository.save(any(ReviewSummary.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(ReviewSummary.class, 9));
+
+        ApiException e = Assertions.assertThrows(ApiException.class, () -> service.analyzeReviewsByFoodTruckId(5, 9));
+
+        Assertions.assertTrue(e.getMessage().contains("please try again"));
+        verify(reviewSummaryRepository, times(3)).save(any(ReviewSummary.class));
+    }
+}
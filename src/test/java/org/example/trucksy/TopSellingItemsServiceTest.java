@@ -0,0 +1,79 @@
+package org.example.trucksy;
+
+import org.example.trucksy.DTO.OrderLineRow;
+import org.example.trucksy.DTOOut.ItemSalesRow;
+import org.example.trucksy.Event.OrderStatusChangedEvent;
+import org.example.trucksy.Repository.DashboardRepository;
+import org.example.trucksy.Repository.OrderLineRepository;
+import org.example.trucksy.Repository.OrderRepository;
+import org.example.trucksy.Service.DashboardCache;
+import org.example.trucksy.Service.TopSellingItemsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Rebuilds swap in fresh sketches without losing the paid orders that arrive while they query order_line.
+@ExtendWith(MockitoExtension.class)
+public class TopSellingItemsServiceTest {
+
+    @Mock OrderRepository orderRepository;
+    @Mock OrderLineRepository orderLineRepository;
+    @Mock DashboardRepository dashboardRepository;
+    @Mock DashboardCache dashboardCache;
+
+    TopSellingItemsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TopSellingItemsService(orderRepository, orderLineRepository, dashboardRepository, dashboardCache);
+        ReflectionTestUtils.setField(service, "sketchCapacity", 64);
+        ReflectionTestUtils.setField(service, "topN", 5);
+        when(orderRepository.findOrderLinesByOrderIdIn(List.of(20)))
+                .thenReturn(List.of(new OrderLineRow(20, 7, "Burger", 4)));
+    }
+
+    @Test
+    void paidOrderDuringRecomputeIsReplayedIntoTheNewSketch() {
+        when(orderLineRepository.sumQuantityByOwnerAndItem()).thenAnswer(inv -> {
+            // committed after the aggregation read order_line, so only the replay can count it
+            service.onOrderStatusChanged(paid(20));
+            return List.of(new ItemSalesRow(5, 6, "Shawarma", 10L), new ItemSalesRow(5, 7, "Burger", 3L));
+        });
+
+        service.recompute();
+
+        verify(dashboardRepository).setTopSellingItems(5, "Shawarma (10), Burger (7)");
+    }
+
+    @Test
+    void firstFlushAfterRestartSeedsFromOrderLinesInsteadOfPublishingPartialCounts() {
+        when(orderLineRepository.sumQuantityByItemForOwner(5))
+                .thenReturn(List.of(new ItemSalesRow(5, 6, "Shawarma", 10L), new ItemSalesRow(5, 7, "Burger", 4L)));
+        service.onOrderStatusChanged(paid(20));
+
+        service.flush();
+
+        // the paid order is already in the seed query, it is not added again
+        verify(dashboardRepository).setTopSellingItems(5, "Shawarma (10), Burger (4)");
+        verify(dashboardRepository, never()).setTopSellingItems(5, "Burger (4)");
+        verify(orderLineRepository, never()).sumQuantityByOwnerAndItem();
+
+        service.onOrderStatusChanged(paid(20));
+        service.flush();
+
+        verify(dashboardRepository).setTopSellingItems(5, "Shawarma (10), Burger (8)");
+        verify(orderLineRepository, times(1)).sumQuantityByItemForOwner(anyInt());
+    }
+
+    private static OrderStatusChangedEvent paid(Integer orderId) {
+        return new OrderStatusChangedEvent(orderId, 1, 3, 5, "PLACED", "PAID", 40.0, null, false);
+    }
+}